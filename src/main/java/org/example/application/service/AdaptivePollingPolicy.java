@@ -0,0 +1,132 @@
+package org.example.application.service;
+
+import org.example.domain.port.MetricsSource;
+import org.example.infrastructure.scheduler.SchedulerProperties;
+import org.example.infrastructure.youtrack.YouTrackProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decides how long to wait before the next poll and how many notifications to ask for.
+ * When scheduler.adaptive is enabled the interval backs off exponentially while nothing new arrives
+ * and snaps back when new notifications show up; the window grows while polls come back full and
+ * shrinks toward what recent polls actually needed. A poll deferred because the delivery queues are full
+ * backs off like an idle one, so the backlog drains first. With webhook ingestion enabled, polls are
+ * never closer than the safety-net sweep interval.
+ */
+@Component
+public class AdaptivePollingPolicy implements MetricsSource {
+
+    private final SchedulerProperties schedulerProperties;
+    private final YouTrackProperties youTrackProperties;
+
+    private Duration delay;
+    private int top;
+    private int lastFetched;
+    private int lastNewItems;
+    private long deferredPolls;
+
+    public AdaptivePollingPolicy(SchedulerProperties schedulerProperties, YouTrackProperties youTrackProperties) {
+        this.schedulerProperties = schedulerProperties;
+        this.youTrackProperties = youTrackProperties;
+        reset();
+    }
+
+    /**
+     * Go back to the configured fixed delay and window, e.g. when polling is (re)started
+     */
+    public synchronized void reset() {
+        delay = Duration.parse(schedulerProperties.getFixedDelay());
+        top = schedulerProperties.getTop();
+        lastFetched = 0;
+        lastNewItems = 0;
+    }
+
+    /**
+     * Record what the last poll's fetch returned. Whether the window was full goes by what YouTrack
+     * returned; whether the poll was idle by what was new, sent now or held back by debounce or digest.
+     * @param fetched notifications in the window past the cursor, already sent ones included
+     * @param newItems notifications in the window not seen before
+     */
+    public synchronized void recordPoll(int fetched, int newItems) {
+        lastFetched = fetched;
+        lastNewItems = newItems;
+        SchedulerProperties.Adaptive adaptive = schedulerProperties.getAdaptive();
+        if (!adaptive.isEnabled()) {
+            return;
+        }
+
+        Duration minDelay = Duration.parse(adaptive.getMinDelay());
+        Duration maxDelay = Duration.parse(adaptive.getMaxDelay());
+        double multiplier = Math.max(1.0, adaptive.getBackoffMultiplier());
+
+        if (fetched >= top) {
+            // Window came back full: there is more waiting, poll again right away with a bigger window
+            delay = minDelay;
+            top = Math.min(adaptive.getMaxTop(), top * 2);
+        } else if (newItems == 0) {
+            // Idle: back off exponentially up to the maximum
+            delay = min(maxDelay, Duration.ofMillis((long) (delay.toMillis() * multiplier)));
+        } else {
+            // Activity: speed up, and shrink the window toward what is actually needed
+            delay = max(minDelay, Duration.ofMillis((long) (delay.toMillis() / multiplier)));
+            top = Math.max(adaptive.getMinTop(), Math.max(newItems * 2, top / 2));
+        }
+    }
+
+    /**
+     * Record a poll that skipped the fetch because the delivery queues were full
+     */
+    public synchronized void recordDeferred() {
+        deferredPolls++;
+        SchedulerProperties.Adaptive adaptive = schedulerProperties.getAdaptive();
+        if (!adaptive.isEnabled()) {
+            return;
+        }
+        Duration maxDelay = Duration.parse(adaptive.getMaxDelay());
+        double multiplier = Math.max(1.0, adaptive.getBackoffMultiplier());
+        delay = min(maxDelay, Duration.ofMillis((long) (delay.toMillis() * multiplier)));
+    }
+
+    public synchronized Duration nextDelay() {
+        Duration next = schedulerProperties.getAdaptive().isEnabled() ? delay : Duration.parse(schedulerProperties.getFixedDelay());
+        // With webhook ingestion, polling is only a safety net for missed events
+        YouTrackProperties.Webhook webhook = youTrackProperties.getWebhook();
+        if (webhook.isEnabled()) {
+            next = max(next, Duration.parse(webhook.getSweepInterval()));
+        }
+        return next;
+    }
+
+    public synchronized int currentTop() {
+        return schedulerProperties.getAdaptive().isEnabled() ? top : schedulerProperties.getTop();
+    }
+
+    @Override
+    public String metricsName() {
+        return "scheduler.polling";
+    }
+
+    @Override
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("adaptive", schedulerProperties.getAdaptive().isEnabled());
+        m.put("delayMs", nextDelay().toMillis());
+        m.put("top", currentTop());
+        m.put("lastFetched", lastFetched);
+        m.put("lastNewItems", lastNewItems);
+        m.put("deferredPolls", deferredPolls);
+        return m;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
@@ -0,0 +1,334 @@
+package org.example.application.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.domain.port.MetricsSource;
+import org.example.domain.view.NotificationView;
+import org.example.infrastructure.scheduler.SchedulerProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decouples polling from sending. The fetcher queues new notifications into a bounded queue per routed
+ * chat, and one virtual-thread worker per chat sends them. A slow send no longer holds up the next poll,
+ * and since Telegram limits each chat on its own, chats are drained in parallel. The fetcher never waits
+ * on a full queue: what does not fit stays in the outbox, and the next poll only resubmits the outbox
+ * instead of fetching more until it fits again. Queued notifications are
+ * already in the outbox, so a restart loses nothing. When a send fails the chat's lane stalls: the rest of its queue goes back to
+ * the outbox and the lane takes nothing new until the next poll resubmits it all in order.
+ */
+@Component
+@ConditionalOnProperty(prefix = "scheduler.pipeline", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeliveryPipeline implements MetricsSource {
+
+    private record Queued(NotificationView view, long enqueuedAt) {}
+
+    /**
+     * One chat's queue and the single worker draining it, which keeps that chat's messages in order
+     */
+    private final class Lane {
+        final String target;
+        final BlockingQueue<Queued> queue = new ArrayBlockingQueue<>(capacity);
+        final StageTimer sendStage = new StageTimer();
+        final AtomicLong delivered = new AtomicLong();
+        volatile boolean busy = false;
+        volatile boolean stalled = false;
+        Thread worker;
+
+        Lane(String target) {
+            this.target = target;
+        }
+    }
+
+    private final NotifyIssueService notifyIssueService;
+    private final NotificationRouter router;
+    private final SchedulerProperties schedulerProperties;
+    private final int capacity;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private volatile boolean running = false;
+
+    // IDs queued or being sent. Finished ones are only released at the start of the next dedup, so a
+    // notification marked as sent while a poll is running is never queued a second time.
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Queue<String> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<IOException> lastFailure = new AtomicReference<>();
+    private final AtomicBoolean saturated = new AtomicBoolean();
+
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final StageTimer fetchStage = new StageTimer();
+    private final StageTimer enqueueStage = new StageTimer();
+    private final StageTimer queueWaitStage = new StageTimer();
+
+    public DeliveryPipeline(NotifyIssueService notifyIssueService, NotificationRouter router,
+                            SchedulerProperties schedulerProperties) {
+        this.notifyIssueService = notifyIssueService;
+        this.router = router;
+        this.schedulerProperties = schedulerProperties;
+        this.capacity = Math.max(1, schedulerProperties.getPipeline().getQueueCapacity());
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        lanes.values().forEach(this::startWorker);
+        System.out.println("[Pipeline] Started, queue capacity " + capacity + " per chat");
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        for (Lane lane : lanes.values()) {
+            if (lane.worker != null) {
+                lane.worker.interrupt();
+                lane.worker = null;
+            }
+        }
+    }
+
+    // Lanes are created on first use, one per chat the router sends to
+    private Lane lane(String target) {
+        return lanes.computeIfAbsent(target, t -> {
+            Lane lane = new Lane(t);
+            startWorker(lane);
+            return lane;
+        });
+    }
+
+    private synchronized void startWorker(Lane lane) {
+        if (running && lane.worker == null) {
+            lane.worker = Thread.ofVirtual().name("delivery-" + lane.target).start(() -> drain(lane));
+        }
+    }
+
+    /**
+     * Queue notifications that are not already queued or being sent on their routed chat's lane. Once a
+     * lane is full, the rest for that chat stay in the outbox, so they still go out in order.
+     * @return the number queued
+     */
+    int submit(List<NotificationView> notifications) {
+        long start = System.nanoTime();
+        int queued = 0;
+        Map<String, Integer> left = new LinkedHashMap<>();
+        try {
+            for (NotificationView n : notifications) {
+                // Callers submit under the delivery lock, so checking and then reserving is safe
+                List<String> ids = NotificationMerger.idsOf(n);
+                if (ids.stream().anyMatch(inFlight::contains)) {
+                    continue;
+                }
+                Lane lane = lane(router.route(n));
+                if (lane.stalled) {
+                    continue; // stays pending behind the notifications that failed before it
+                }
+                inFlight.addAll(ids);
+                if (left.containsKey(lane.target) || !lane.queue.offer(new Queued(n, System.nanoTime()))) {
+                    // Never queued, so it stays pending in the outbox for the next poll
+                    ids.forEach(inFlight::remove);
+                    left.merge(lane.target, 1, Integer::sum);
+                    continue;
+                }
+                queued++;
+            }
+        } finally {
+            enqueueStage.record(System.nanoTime() - start);
+        }
+        if (!left.isEmpty()) {
+            saturated.set(true);
+        }
+        left.forEach((target, count) -> {
+            overflowed.addAndGet(count);
+            System.out.println("[Pipeline] Queue for " + target + " is full, " + count
+                    + " notifications wait in the outbox for the next poll");
+        });
+        return queued;
+    }
+
+    /**
+     * Forget IDs whose delivery has finished. Called before dedup, when sent ones are already marked
+     * and failed ones are still pending in the outbox.
+     */
+    void releaseFinished() {
+        String id;
+        while ((id = finished.poll()) != null) {
+            inFlight.remove(id);
+        }
+    }
+
+    /**
+     * Let stalled lanes take notifications again. Called by the poll, which resubmits the outbox in order
+     * before anything newer.
+     */
+    void resumeStalled() {
+        lanes.values().forEach(lane -> lane.stalled = false);
+    }
+
+    /**
+     * Whether a queue overflowed since the previous call, leaving notifications in the outbox. The poll
+     * then only resubmits the outbox, and fetches again once a resubmission fits.
+     */
+    boolean takeSaturated() {
+        return saturated.getAndSet(false);
+    }
+
+    /**
+     * The last delivery failure since the previous call, so the polling circuit breaker still sees it
+     */
+    IOException takeFailure() {
+        return lastFailure.getAndSet(null);
+    }
+
+    void recordFetch(long nanos) {
+        fetchStage.record(nanos);
+    }
+
+    private void drain(Lane lane) {
+        while (running) {
+            List<Queued> batch;
+            try {
+                batch = nextBatch(lane.queue);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (lane.stalled) {
+                // Queued just as the lane stalled; the next poll resubmits it in order
+                batch.forEach(q -> finished.addAll(NotificationMerger.idsOf(q.view())));
+                continue;
+            }
+            lane.busy = true;
+            long start = System.nanoTime();
+            batch.forEach(q -> queueWaitStage.record(start - q.enqueuedAt()));
+            try {
+                lane.delivered.addAndGet(notifyIssueService.deliverQueued(lane.target,
+                        batch.stream().map(Queued::view).toList()));
+            } catch (IOException | RuntimeException e) {
+                failedBatches.incrementAndGet();
+                lastFailure.set(e instanceof IOException io ? io : new IOException(e.getMessage(), e));
+                System.err.println("[Pipeline] Delivery to " + lane.target
+                        + " failed, unsent notifications stay in the outbox: " + e.getMessage());
+                stall(lane);
+            } finally {
+                lane.sendStage.record(System.nanoTime() - start);
+                batch.forEach(q -> finished.addAll(NotificationMerger.idsOf(q.view())));
+                lane.busy = false;
+            }
+        }
+    }
+
+    // Later notifications for the chat must not overtake the failed one, so they go back to the outbox too
+    private void stall(Lane lane) {
+        lane.stalled = true;
+        List<Queued> rest = new ArrayList<>();
+        lane.queue.drainTo(rest);
+        rest.forEach(q -> finished.addAll(NotificationMerger.idsOf(q.view())));
+        if (!rest.isEmpty()) {
+            System.err.println("[Pipeline] Returned " + rest.size() + " queued notifications for " + lane.target
+                    + " to the outbox until the next poll");
+        }
+    }
+
+    // One notification, or with digests enabled as many as fit one digest within max-wait of the first
+    private List<Queued> nextBatch(BlockingQueue<Queued> queue) throws InterruptedException {
+        Queued first = queue.take();
+        List<Queued> batch = new ArrayList<>();
+        batch.add(first);
+
+        SchedulerProperties.Digest digest = schedulerProperties.getDigest();
+        if (digest == null || !digest.isEnabled()) {
+            return batch;
+        }
+        long deadline = first.enqueuedAt() + Duration.parse(digest.getMaxWait()).toNanos();
+        while (batch.size() < digest.getMaxCount()) {
+            Queued next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    @Override
+    public String metricsName() {
+        return "delivery.pipeline";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> perChat = new LinkedHashMap<>();
+        int queueDepth = 0;
+        int busyWorkers = 0;
+        long delivered = 0;
+        for (Lane lane : lanes.values()) {
+            Map<String, Object> l = new LinkedHashMap<>();
+            l.put("queueDepth", lane.queue.size());
+            l.put("busy", lane.busy);
+            l.put("delivered", lane.delivered.get());
+            l.put("send", lane.sendStage.snapshot());
+            perChat.put(lane.target, l);
+            queueDepth += lane.queue.size();
+            busyWorkers += lane.busy ? 1 : 0;
+            delivered += lane.delivered.get();
+        }
+
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("queueDepth", queueDepth);
+        m.put("queueCapacityPerChat", capacity);
+        m.put("inFlight", inFlight.size());
+        m.put("workers", lanes.size());
+        m.put("busyWorkers", busyWorkers);
+        m.put("delivered", delivered);
+        m.put("failedBatches", failedBatches.get());
+        m.put("overflowed", overflowed.get());
+        m.put("saturated", saturated.get());
+        m.put("fetch", fetchStage.snapshot());
+        m.put("enqueue", enqueueStage.snapshot());
+        m.put("queueWait", queueWaitStage.snapshot());
+        m.put("chats", perChat);
+        return m;
+    }
+
+    /**
+     * Count, average and maximum latency of one stage
+     */
+    private static final class StageTimer {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        synchronized void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("count", count);
+            m.put("avgMs", count == 0 ? 0 : totalNanos / count / 1_000_000.0);
+            m.put("maxMs", maxNanos / 1_000_000.0);
+            return m;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.application.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs formatted Telegram messages into digests made of whole messages, so no MarkdownV2 entity is ever split.
+ */
+public final class DigestPacker {
+
+    /** Telegram's limit on the text of one message */
+    public static final int TELEGRAM_MAX_CHARS = 4096;
+    static final String SEPARATOR = "\n\n";
+
+    private DigestPacker() {}
+
+    /**
+     * Group consecutive messages, at most maxCount per digest and at most maxChars once joined.
+     * A single message longer than maxChars still gets a digest of its own.
+     * @return the message indexes of each digest, in order
+     */
+    public static List<List<Integer>> pack(List<String> messages, int maxCount, int maxChars) {
+        int limit = Math.min(Math.max(1, maxChars), TELEGRAM_MAX_CHARS);
+        int count = Math.max(1, maxCount);
+        List<List<Integer>> digests = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        int currentChars = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            int length = messages.get(i).length();
+            if (!current.isEmpty() && (current.size() >= count || currentChars + SEPARATOR.length() + length > limit)) {
+                digests.add(current);
+                current = new ArrayList<>();
+                currentChars = 0;
+            }
+            currentChars += (current.isEmpty() ? 0 : SEPARATOR.length()) + length;
+            current.add(i);
+        }
+        if (!current.isEmpty()) {
+            digests.add(current);
+        }
+        return digests;
+    }
+
+    public static String join(List<String> parts) {
+        return String.join(SEPARATOR, parts);
+    }
+}
@@ -14,7 +14,10 @@ public final class Formatter {
         return s.replace("```", "``\\`");
     }
 
-    /** Formats a YouTrack notification into a Telegram MarkdownV2-compatible string */
+    /**
+     * Formats a YouTrack notification into a Telegram MarkdownV2-compatible string.
+     * Only metadata-derived fields are used; NotificationView.content is not fetched by default (youtrack.fetch-content).
+     */
     public static String toTelegramMarkdown(org.example.domain.view.NotificationView n) {
         StringBuilder sb = new StringBuilder();
 
@@ -42,6 +45,14 @@ public final class Formatter {
         if (notBlank(n.assignee)) {
             sb.append("Assignee: `").append(codeV2(n.assignee)).append("`\n");
         }
+        // Extra projected custom fields (e.g. Type, Sprint) configured via youtrack.projected-fields
+        if (n.fields != null) {
+            n.fields.forEach((name, value) -> {
+                if (notBlank(value) && !isBuiltInField(name)) {
+                    sb.append(escapeV2(name)).append(": `").append(codeV2(value)).append("`\n");
+                }
+            });
+        }
 
         if (n.tags != null && !n.tags.isEmpty()) {
             String tags = n.tags.stream()
@@ -66,6 +77,10 @@ public final class Formatter {
         return s != null && !s.isBlank();
     }
 
+    private static boolean isBuiltInField(String name) {
+        return "State".equalsIgnoreCase(name) || "Priority".equalsIgnoreCase(name) || "Assignee".equalsIgnoreCase(name);
+    }
+
     private static String firstNonBlank(String a, String b) {
         return notBlank(a) ? a : (b == null ? "" : b);
     }
@@ -3,7 +3,6 @@ package org.example.application.service;
 import org.example.domain.model.ProjectInfo;
 import org.example.domain.port.IssueCreationPort;
 import org.example.domain.port.MessengerPort;
-import org.example.infrastructure.telegram.TelegramClient;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -19,7 +18,7 @@ public class InteractiveCommandService {
     private final org.example.domain.port.NotificationStoragePort storagePort;
 
     public InteractiveCommandService(IssueCreationPort issueCreationPort,
-                                    TelegramClient telegramClient,
+                                    MessengerPort telegramClient,
                                     SystemHealthService healthService,
                                     NotificationScheduler notificationScheduler,
                                     org.example.domain.port.NotificationStoragePort storagePort) {
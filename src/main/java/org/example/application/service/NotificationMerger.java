@@ -0,0 +1,107 @@
+package org.example.application.service;
+
+import org.example.domain.model.TimestampCursor;
+import org.example.domain.view.NotificationView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Folds several notifications on the same issue into one update, for the debounce window
+ */
+final class NotificationMerger {
+
+    private NotificationMerger() {}
+
+    /**
+     * Group notifications by issue ID in order of first appearance; ones without an issue ID stay alone
+     */
+    static Collection<List<NotificationView>> groupByIssue(List<NotificationView> notifications) {
+        Map<String, List<NotificationView>> groups = new LinkedHashMap<>();
+        for (NotificationView n : notifications) {
+            String key = n.issueId != null && !n.issueId.isBlank() ? "issue:" + n.issueId : "id:" + n.id;
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(n);
+        }
+        return groups.values();
+    }
+
+    /**
+     * One view with the latest value of every field, all comments oldest first, and the older IDs in mergedIds
+     */
+    static NotificationView merge(List<NotificationView> group) {
+        if (group.size() == 1) {
+            return group.get(0);
+        }
+        List<NotificationView> ordered = new ArrayList<>(group);
+        ordered.sort(Comparator.comparing((NotificationView n) -> n.updated, TimestampCursor::compareBlankLast));
+        NotificationView latest = ordered.get(ordered.size() - 1);
+
+        NotificationView merged = new NotificationView();
+        merged.id = latest.id;
+        merged.issueId = latest.issueId;
+        merged.updated = latest.updated;
+        merged.read = ordered.stream().allMatch(n -> n.read);
+        merged.title = latestNonBlank(ordered, n -> n.title);
+        merged.content = latestNonBlank(ordered, n -> n.content);
+        merged.status = latestNonBlank(ordered, n -> n.status);
+        merged.assignee = latestNonBlank(ordered, n -> n.assignee);
+        merged.priority = latestNonBlank(ordered, n -> n.priority);
+        merged.header = latestNonBlank(ordered, n -> n.header);
+        merged.link = latestNonBlank(ordered, n -> n.link);
+        for (NotificationView n : ordered) {
+            if (n.tags != null) {
+                merged.tags = n.tags;
+            }
+            if (n.fields != null) {
+                if (merged.fields == null) {
+                    merged.fields = new LinkedHashMap<>();
+                }
+                merged.fields.putAll(n.fields);
+            }
+        }
+
+        String comments = ordered.stream()
+                .map(n -> n.comment)
+                .filter(c -> c != null && !c.isBlank())
+                .distinct()
+                .collect(Collectors.joining("\n\n"));
+        merged.comment = comments.isEmpty() ? null : comments;
+
+        merged.mergedIds = new ArrayList<>();
+        for (NotificationView n : ordered) {
+            if (n != latest) {
+                merged.mergedIds.addAll(idsOf(n));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * The notification's own ID followed by any merged into it
+     */
+    static List<String> idsOf(NotificationView n) {
+        if (n.mergedIds == null || n.mergedIds.isEmpty()) {
+            return List.of(n.id);
+        }
+        List<String> ids = new ArrayList<>(n.mergedIds.size() + 1);
+        ids.add(n.id);
+        ids.addAll(n.mergedIds);
+        return ids;
+    }
+
+    private static String latestNonBlank(List<NotificationView> ordered, Function<NotificationView, String> field) {
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            String value = field.apply(ordered.get(i));
+            if (value != null && !value.isBlank()) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
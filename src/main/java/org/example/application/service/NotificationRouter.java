@@ -0,0 +1,93 @@
+package org.example.application.service;
+
+import org.example.domain.view.NotificationView;
+import org.example.infrastructure.telegram.TelegramProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the chat for each notification from telegram.routing rules, by project prefix of the issue ID,
+ * assignee, priority or tag. The first matching rule wins, so every notification goes to exactly one chat.
+ */
+@Component
+public class NotificationRouter {
+
+    /** Target for notifications no rule matches, sent with MessengerPort.sendToPm */
+    public static final String PM = "pm";
+
+    private record CompiledRule(String chatId, Set<String> projects, Set<String> assignees,
+                                Set<String> priorities, Set<String> tags) {
+
+        boolean matches(NotificationView n) {
+            return matchesOne(projects, projectOf(n.issueId))
+                    && matchesOne(assignees, n.assignee)
+                    && matchesOne(priorities, n.priority)
+                    && matchesAny(tags, n.tags);
+        }
+    }
+
+    private final List<CompiledRule> rules = new ArrayList<>();
+
+    public NotificationRouter(TelegramProperties telegramProperties) {
+        TelegramProperties.Routing routing = telegramProperties.getRouting();
+        if (routing == null || !routing.isEnabled()) {
+            return;
+        }
+        for (TelegramProperties.Rule rule : routing.getRules()) {
+            if (rule.getChatId() == null || rule.getChatId().isBlank()) {
+                System.err.println("[Routing] Ignoring a rule without chat-id");
+                continue;
+            }
+            rules.add(new CompiledRule(rule.getChatId().trim(), normalize(rule.getProjects()),
+                    normalize(rule.getAssignees()), normalize(rule.getPriorities()), normalize(rule.getTags())));
+        }
+        System.out.println("[Routing] " + rules.size() + " routing rule(s) loaded");
+    }
+
+    /**
+     * @return the chat ID of the first matching rule, or PM
+     */
+    public String route(NotificationView n) {
+        for (CompiledRule rule : rules) {
+            if (rule.matches(n)) {
+                return rule.chatId();
+            }
+        }
+        return PM;
+    }
+
+    static String projectOf(String issueId) {
+        if (issueId == null) {
+            return null;
+        }
+        int dash = issueId.lastIndexOf('-');
+        return dash > 0 ? issueId.substring(0, dash) : issueId;
+    }
+
+    private static boolean matchesOne(Set<String> allowed, String value) {
+        return allowed.isEmpty() || (value != null && allowed.contains(value.trim().toLowerCase(Locale.ROOT)));
+    }
+
+    private static boolean matchesAny(Set<String> allowed, Collection<String> values) {
+        if (allowed.isEmpty()) {
+            return true;
+        }
+        return values != null && values.stream().anyMatch(v -> matchesOne(allowed, v));
+    }
+
+    private static Set<String> normalize(List<String> values) {
+        if (values == null) {
+            return Set.of();
+        }
+        return values.stream()
+                .filter(v -> v != null && !v.isBlank())
+                .map(v -> v.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
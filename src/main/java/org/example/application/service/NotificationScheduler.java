@@ -1,53 +1,79 @@
 package org.example.application.service;
 
+import org.example.domain.port.LeaderElectionPort;
 import org.example.domain.port.MessengerPort;
 import org.example.infrastructure.scheduler.SchedulerProperties;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.Duration;
 
 @Component
 @ConditionalOnProperty(prefix = "scheduler", name = "enabled", havingValue = "true", matchIfMissing = true)
-public class NotificationScheduler {
+public class NotificationScheduler implements SchedulingConfigurer {
 
     private final NotifyIssueService notifyIssueService;
     private final MessengerPort messengerPort;
     private final SystemHealthService healthService;
     private final SchedulerProperties schedulerProperties;
+    private final AdaptivePollingPolicy pollingPolicy;
+    private final LeaderElectionPort leaderElection; // null when a single instance runs on its own
     
     private volatile boolean isRunning = false; // Control flag for scheduler
     private volatile boolean isPaused = false; // Paused due to errors
     private volatile LocalDateTime pausedUntil = null; // When to automatically resume
     private volatile boolean hasSentPauseAlert = false; // Track if pause alert was sent
 
-    @Value("${scheduler.top:1000}")
-    private int top;
-
     public NotificationScheduler(NotifyIssueService notifyIssueService,
                                 MessengerPort messengerPort,
                                 SystemHealthService healthService,
-                                SchedulerProperties schedulerProperties) {
+                                SchedulerProperties schedulerProperties,
+                                AdaptivePollingPolicy pollingPolicy,
+                                ObjectProvider<LeaderElectionPort> leaderElection) {
         this.notifyIssueService = notifyIssueService;
         this.messengerPort = messengerPort;
         this.healthService = healthService;
         this.schedulerProperties = schedulerProperties;
+        this.pollingPolicy = pollingPolicy;
+        this.leaderElection = leaderElection.getIfAvailable();
+    }
+
+    // Delay between polls comes from the polling policy: scheduler.fixed-delay, or adaptive when enabled.
+    // Polling only does work once the user enables it. A held digest or debounced issue that falls due sooner
+    // brings the next poll forward.
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addTriggerTask(this::pullAndBroadcast, context -> {
+            Instant lastCompletion = context.lastCompletion();
+            if (lastCompletion == null) {
+                return Instant.now().plus(Duration.parse(schedulerProperties.getInitialDelay()));
+            }
+            Duration delay = pollingPolicy.nextDelay();
+            Duration heldDue = notifyIssueService.timeUntilHeldDue();
+            if (heldDue != null && heldDue.compareTo(delay) < 0) {
+                return Instant.now().plus(heldDue);
+            }
+            return lastCompletion.plus(delay);
+        });
     }
 
-    // Configurable via application properties - no initial delay, starts only when user enables it
-    @Scheduled(
-            fixedDelayString = "${scheduler.fixed-delay:PT5S}"
-    )
     public void pullAndBroadcast() {
         // Check if scheduler is enabled by user
-        if (!isRunning) {
+        if (!isRunning()) {
             return; // Skip execution if not enabled
         }
 
+        // With several replicas only the lease holder polls
+        if (leaderElection != null && !leaderElection.isLeader()) {
+            return;
+        }
+
         // Check if auto-resume time has passed
         if (isPaused && pausedUntil != null) {
             if (LocalDateTime.now().isAfter(pausedUntil)) {
@@ -67,7 +93,12 @@ public class NotificationScheduler {
         }
 
         try {
-            notifyIssueService.sendAllToPm(top);
+            NotifyIssueService.PollResult result = notifyIssueService.poll(pollingPolicy.currentTop());
+            if (result.deferred()) {
+                pollingPolicy.recordDeferred();
+            } else {
+                pollingPolicy.recordPoll(result.fetched(), result.newItems());
+            }
 
             // Record success and send recovery notification if recovering from failures
             boolean wasFaili = healthService.hasRecentFailures();
@@ -223,11 +254,16 @@ public class NotificationScheduler {
      * Start the scheduler - enables notification pulling
      */
     public void start() {
+        if (leaderElection != null) {
+            // Shared with the other replicas, so a failover leader keeps polling
+            leaderElection.setPollingEnabled(true);
+        }
         if (!isRunning) {
             isRunning = true;
             isPaused = false;
             pausedUntil = null;
             hasSentPauseAlert = false;
+            pollingPolicy.reset();
             System.out.println("[Scheduler] Started by user command");
         }
     }
@@ -236,6 +272,9 @@ public class NotificationScheduler {
      * Stop the scheduler - disables notification pulling
      */
     public void stop() {
+        if (leaderElection != null) {
+            leaderElection.setPollingEnabled(false);
+        }
         if (isRunning) {
             isRunning = false;
             System.out.println("[Scheduler] Stopped by user command");
@@ -258,6 +297,13 @@ public class NotificationScheduler {
      * Check if scheduler is currently running
      */
     public boolean isRunning() {
+        if (leaderElection != null && leaderElection.isPollingEnabled() != isRunning) {
+            // Started or stopped through another replica
+            isRunning = leaderElection.isPollingEnabled();
+            if (isRunning) {
+                pollingPolicy.reset();
+            }
+        }
         return isRunning;
     }
 
@@ -1,31 +1,67 @@
 package org.example.application.service;
 
+import org.example.domain.model.TimestampCursor;
 import org.example.domain.port.IssueTrackerPort;
+import org.example.domain.port.LeaderElectionPort;
+import org.example.domain.port.MessageRejectedException;
 import org.example.domain.port.MessengerPort;
 import org.example.domain.port.NotificationStoragePort;
 import org.example.domain.view.NotificationView;
 import org.example.infrastructure.scheduler.SchedulerProperties;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
 public class NotifyIssueService {
 
+    private static final int DEDUP_CHUNK_SIZE = 200;
+
     private final IssueTrackerPort issueTrackerPort;
     private final MessengerPort messengerPort;
     private final NotificationStoragePort storagePort;
     private final SchedulerProperties schedulerProperties;
+    private final PushIngestionTracker pushTracker;
+    private final NotificationRouter router;
+    private final ObjectProvider<DeliveryPipeline> pipelineProvider; // resolved per call, the pipeline depends on this service
+    private final LeaderElectionPort leaderElection; // null when a single instance runs on its own
+
+    // Polling and webhook pushes share dedup state, so only one of them delivers at a time
+    private final Object deliveryLock = new Object();
+
+    // When each notification was first seen by the debounce, for the debounce window
+    private final Map<String, Long> debounceSeenAt = new ConcurrentHashMap<>();
+    // When each notification first became ready to go out, for the digest max-wait
+    private final Map<String, Long> digestQueuedAt = new ConcurrentHashMap<>();
+    private volatile long digestDueAt = 0;
+    private volatile long debounceDueAt = 0;
 
     public NotifyIssueService(IssueTrackerPort issueTrackerPort, MessengerPort messengerPort,
-                             NotificationStoragePort storagePort, SchedulerProperties schedulerProperties) {
+                             NotificationStoragePort storagePort, SchedulerProperties schedulerProperties,
+                             PushIngestionTracker pushTracker, NotificationRouter router,
+                             ObjectProvider<DeliveryPipeline> pipelineProvider,
+                             ObjectProvider<LeaderElectionPort> leaderElection) {
         this.issueTrackerPort = issueTrackerPort;
         this.messengerPort = messengerPort;
         this.storagePort = storagePort;
         this.schedulerProperties = schedulerProperties;
+        this.pushTracker = pushTracker;
+        this.router = router;
+        this.pipelineProvider = pipelineProvider;
+        this.leaderElection = leaderElection.getIfAvailable();
     }
 
     public List<NotificationView> fetch(int top) throws IOException {
@@ -33,100 +69,421 @@ public class NotifyIssueService {
     }
 
 
-    public void sendAllToPm(int top) throws IOException {
-        System.out.println("Starting to fetch notifications and send to PM, top=" + top);
+    /**
+     * What one poll did: how many notifications YouTrack returned past the cursor, how many of them were
+     * new, how many notifications went out or were queued (held and resumed ones included), and whether
+     * the YouTrack fetch was deferred because the delivery queues were full
+     */
+    public record PollResult(int fetched, int newItems, int dispatched, boolean deferred) {}
+
+    // The new notifications of one fetch, and how many the window held before dedup
+    private record Fetched(List<NotificationView> notifications, int windowSize) {}
+
+    /**
+     * Fetch, deduplicate and send new notifications to their routed chats (the PM chat unless routing says
+     * otherwise), or hand them to the delivery pipeline
+     * @return the number of new notifications sent or queued
+     */
+    public int sendAllToPm(int top) throws IOException {
+        return poll(top).dispatched();
+    }
+
+    /**
+     * Same as {@link #sendAllToPm}, reporting what the poll did to the polling policy. While the delivery
+     * queues are full only the outbox is resubmitted; nothing new is fetched until it fits again.
+     */
+    public PollResult poll(int top) throws IOException {
+        DeliveryPipeline pipeline = pipelineProvider.getIfAvailable();
+        int dispatched;
+        int fetched = 0;
+        int newItems = 0;
+        boolean deferred = false;
+        synchronized (deliveryLock) {
+            System.out.println("Starting to fetch notifications and send to PM, top=" + top);
+            if (pipeline != null) {
+                pipeline.releaseFinished();
+                pipeline.resumeStalled();
+            }
+
+            // What a crash, a failed send or a held digest left in the outbox goes out with this batch
+            List<NotificationView> pending = filterUnsent(storagePort.getPending());
+            if (!pending.isEmpty()) {
+                System.out.println("Resuming " + pending.size() + " pending notifications from the outbox");
+            }
+
+            List<NotificationView> batch = new ArrayList<>(pending);
+            if (pipeline != null && pipeline.takeSaturated()) {
+                // Backpressure: the outbox already holds more than the queues take, fetching would only grow it
+                System.out.println("Delivery queues are full, deferring the fetch until the outbox drains");
+                deferred = true;
+            } else {
+                Fetched newNotifications;
+                long fetchStart = System.nanoTime();
+                try {
+                    newNotifications = fetchNew(top, pending);
+                } catch (IOException | RuntimeException e) {
+                    // YouTrack being unreachable must not hold back what is already in the outbox
+                    try {
+                        dispatch(debounce(pending, false), false, pipeline);
+                    } catch (IOException sendError) {
+                        e.addSuppressed(sendError);
+                    }
+                    throw e;
+                }
+                if (pipeline != null) {
+                    pipeline.recordFetch(System.nanoTime() - fetchStart);
+                }
+                batch.addAll(newNotifications.notifications());
+                fetched = newNotifications.windowSize();
+                newItems = newNotifications.notifications().size();
+            }
+
+            Set<String> batchIds = batch.stream().map(n -> n.id).collect(Collectors.toSet());
+            debounceSeenAt.keySet().retainAll(batchIds);
+            digestQueuedAt.keySet().retainAll(batchIds);
+            dispatched = dispatch(debounce(batch, true), true, pipeline);
+        }
+
+        // Sends now fail on a worker thread; report them here so the circuit breaker still counts them
+        IOException deliveryFailure = pipeline != null ? pipeline.takeFailure() : null;
+        if (deliveryFailure != null) {
+            throw deliveryFailure;
+        }
+        return new PollResult(fetched, newItems, dispatched, deferred);
+    }
 
-        // Fetch notifications with specified top parameter
-        List<NotificationView> allNotifications = fetch(top);
-        System.out.println("Fetched " + allNotifications.size() + " total notifications");
+    /**
+     * Stream the delta since the cursor, keep what is neither sent nor already pending, record it in the
+     * outbox and advance the cursor
+     */
+    private Fetched fetchNew(int top, List<NotificationView> pending) throws IOException {
+        // Resume from the newest timestamp handled so far, so only the delta is fetched
+        String cursor = storagePort.getLastSeenTimestamp();
+        System.out.println("Polling from timestamp cursor: " + (cursor == null ? "<none>" : cursor));
 
-        // Debug: Print all notification IDs
-        for (NotificationView n : allNotifications) {
+        // Stream notifications and keep only the unsent ones, so memory follows the number of new
+        // notifications instead of the fetch window. Dedup runs per chunk through the storage batch
+        // lookup. Sending starts once the stream is closed, so the throttled Telegram delivery never
+        // holds the YouTrack response open.
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicReference<String> newest = new AtomicReference<>(cursor);
+        List<NotificationView> newNotifications = new ArrayList<>();
+        List<NotificationView> chunk = new ArrayList<>();
+        Set<String> seenIds = new HashSet<>();
+        issueTrackerPort.streamNotificationsFromTimestamp(cursor, top, n -> {
+            fetched.incrementAndGet();
+            newest.set(TimestampCursor.max(newest.get(), n.updated));
+            if (!seenIds.add(n.id)) {
+                return; // listed twice in this window, keep the first
+            }
             System.out.println("Notification ID: " + n.id + ", Issue ID: " + n.issueId + ", Title: " + n.title);
+            chunk.add(n);
+            if (chunk.size() >= DEDUP_CHUNK_SIZE) {
+                newNotifications.addAll(filterUnsent(chunk));
+                chunk.clear();
+            }
+        });
+        newNotifications.addAll(filterUnsent(chunk));
+        System.out.println("Fetched " + fetched.get() + " total notifications");
+
+        Set<String> pendingIds = pending.stream().map(n -> n.id).collect(Collectors.toSet());
+        newNotifications.removeIf(n -> pendingIds.contains(n.id));
+
+        Set<String> coveredByPush = pushTracker.claimCovered(newNotifications);
+        newNotifications.removeIf(n -> coveredByPush.contains(n.id));
+
+        System.out.println("Found " + newNotifications.size() + " new notifications (after deduplication)");
+        if (!coveredByPush.isEmpty()) {
+            // Already delivered through the webhook, just remember them as sent
+            System.out.println("Skipping " + coveredByPush.size() + " notifications already delivered by webhook");
+            storagePort.markAsSent(coveredByPush);
         }
 
-        // Get all sent notification IDs from storage
-        Set<String> sentIds = storagePort.getAllSentIds();
-        System.out.println("Already sent " + sentIds.size() + " notifications");
+        // Record the batch as pending before moving the cursor, so nothing between the two is lost
+        storagePort.enqueuePending(newNotifications);
+        advanceCursor(cursor, newest.get());
+        return new Fetched(newNotifications, fetched.get());
+    }
 
-        // Filter out already sent notifications
-        List<NotificationView> newNotifications = allNotifications.stream()
-                .filter(n -> !sentIds.contains(n.id))
+    /**
+     * Deduplicate and send notifications pushed by the YouTrack webhook
+     * @return the number of new notifications sent or queued
+     */
+    public int deliverPushed(List<NotificationView> pushed) throws IOException {
+        DeliveryPipeline pipeline = pipelineProvider.getIfAvailable();
+        synchronized (deliveryLock) {
+            if (pipeline != null) {
+                pipeline.releaseFinished();
+            }
+            List<NotificationView> newNotifications = filterUnsent(pushed);
+            System.out.println("Received " + pushed.size() + " pushed notifications, " + newNotifications.size() + " new");
+
+            storagePort.enqueuePending(newNotifications);
+            int sent = dispatch(debounce(newNotifications, false), false, pipeline);
+            for (NotificationView n : newNotifications) {
+                pushTracker.recordPush(n.issueId, Long.parseLong(n.updated));
+            }
+            return sent;
+        }
+    }
+
+    private List<NotificationView> filterUnsent(List<NotificationView> candidates) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        Set<String> unsentIds = new HashSet<>(storagePort.filterUnsent(
+                candidates.stream().map(n -> n.id).collect(Collectors.toList())));
+        // remove, so a notification listed twice is kept only once
+        return candidates.stream()
+                .filter(n -> unsentIds.remove(n.id))
                 .collect(Collectors.toList());
+    }
 
-        System.out.println("Found " + newNotifications.size() + " new notifications (after deduplication)");
+    // The pipeline queues are bounded; what does not fit stays in the outbox for the next poll
+    private int dispatch(List<NotificationView> notifications, boolean allowHold, DeliveryPipeline pipeline)
+            throws IOException {
+        if (pipeline == null) {
+            return deliver(notifications, allowHold);
+        }
+        int queued = pipeline.submit(notifications);
+        System.out.println("Queued " + queued + " notifications for delivery");
+        return queued;
+    }
+
+    /**
+     * Send notifications taken off one chat's delivery queue. Workers gather digests themselves, so none are held.
+     */
+    int deliverQueued(String target, List<NotificationView> notifications) throws IOException {
+        return sendTo(target, notifications, false).count();
+    }
 
-        if (newNotifications.isEmpty()) {
+    /**
+     * Send notifications to their routed chats, one by one or packed into digests. Each is marked as sent as
+     * soon as the message carrying it goes out, so a failure part way through leaves only the rest pending.
+     * @param allowHold whether an incomplete last digest may wait in the outbox for more notifications
+     * @return the number of notifications sent
+     */
+    private int deliver(List<NotificationView> notifications, boolean allowHold) throws IOException {
+        if (notifications.isEmpty()) {
             System.out.println("No new notifications to send");
-            return;
+            if (allowHold) {
+                digestDueAt = 0;
+            }
+            return 0;
         }
 
-        // Send notifications with pagination
-        sendNotificationsWithPaginationToPm(newNotifications);
-
-        // Mark new notifications as sent
-        Set<String> newSentIds = newNotifications.stream()
-                .map(n -> n.id)
-                .collect(Collectors.toSet());
-        storagePort.markAsSent(newSentIds);
-        System.out.println("All new notifications sent to PM successfully and marked as sent");
+        Map<String, List<NotificationView>> byTarget = notifications.stream()
+                .collect(Collectors.groupingBy(router::route, LinkedHashMap::new, Collectors.toList()));
+        int sent = 0;
+        long heldUntil = 0;
+        for (Map.Entry<String, List<NotificationView>> entry : byTarget.entrySet()) {
+            Delivered delivered = sendTo(entry.getKey(), entry.getValue(), allowHold);
+            sent += delivered.count();
+            if (delivered.heldUntil() != 0) {
+                heldUntil = heldUntil == 0 ? delivered.heldUntil() : Math.min(heldUntil, delivered.heldUntil());
+            }
+        }
+        if (allowHold) {
+            digestDueAt = heldUntil;
+        }
+        System.out.println("Sent " + sent + " notifications and marked them as sent");
+        return sent;
     }
 
+    // How many went out, and when a digest held back for more notifications falls due (0 if none)
+    private record Delivered(int count, long heldUntil) {}
 
+    private Delivered sendTo(String target, List<NotificationView> notifications, boolean allowHold) throws IOException {
+        SchedulerProperties.Digest digest = schedulerProperties.getDigest();
+        return digest != null && digest.isEnabled()
+                ? sendDigests(target, notifications, digest, allowHold)
+                : new Delivered(sendNotifications(target, notifications), 0);
+    }
 
-    private void sendNotificationsWithPaginationToPm(List<NotificationView> notifications) throws IOException {
-        SchedulerProperties.Pagination pagination = schedulerProperties.getPagination();
+    /**
+     * Time until a held digest or debounced issue is due, or null when nothing is held
+     */
+    public Duration timeUntilHeldDue() {
+        long digestDue = digestDueAt;
+        long debounceDue = debounceDueAt;
+        long due = digestDue == 0 ? debounceDue : debounceDue == 0 ? digestDue : Math.min(digestDue, debounceDue);
+        return due == 0 ? null : Duration.ofMillis(Math.max(0, due - System.currentTimeMillis()));
+    }
 
-        if (pagination.isEnabled()) {
-            // Send with pagination
-            int pageSize = pagination.getPageSize();
-            int delayMs = parseDurationToMs(pagination.getDelayBetweenMessages());
+    /**
+     * Merge notifications on the same issue into one update. When holding is allowed, an issue waits until
+     * its first pending notification is a debounce window old, so a burst of edits goes out together; the
+     * held ones stay in the outbox for a later poll.
+     */
+    private List<NotificationView> debounce(List<NotificationView> notifications, boolean allowHold) {
+        SchedulerProperties.Debounce debounce = schedulerProperties.getDebounce();
+        if (debounce == null || !debounce.isEnabled()) {
+            return notifications;
+        }
+        long now = System.currentTimeMillis();
+        long windowMs = Duration.parse(debounce.getWindow()).toMillis();
 
-            System.out.println("Sending to PM with pagination: pageSize=" + pageSize + ", delay=" + delayMs + "ms");
+        List<NotificationView> ready = new ArrayList<>();
+        long heldUntil = 0;
+        int held = 0;
+        for (List<NotificationView> issue : NotificationMerger.groupByIssue(notifications)) {
+            long first = issue.stream()
+                    .mapToLong(n -> debounceSeenAt.computeIfAbsent(n.id, id -> now))
+                    .min().orElse(now);
+            if (allowHold && now - first < windowMs) {
+                heldUntil = heldUntil == 0 ? first + windowMs : Math.min(heldUntil, first + windowMs);
+                held += issue.size();
+                continue;
+            }
+            ready.add(NotificationMerger.merge(issue));
+        }
+        if (allowHold) {
+            debounceDueAt = heldUntil;
+        }
+        if (held > 0) {
+            System.out.println("Holding " + held + " notifications for the debounce window");
+        }
+        return ready;
+    }
 
-            for (int i = 0; i < notifications.size(); i += pageSize) {
-                int endIndex = Math.min(i + pageSize, notifications.size());
-                List<NotificationView> page = notifications.subList(i, endIndex);
+    // Only called once the fetched batch is in the outbox, so a failed send is resumed from there
+    private void advanceCursor(String previous, String newest) {
+        if (newest != null && !newest.isBlank() && !newest.equals(previous)) {
+            storagePort.saveLastSeenTimestamp(newest);
+            System.out.println("Advanced timestamp cursor to " + newest);
+        }
+    }
 
-                System.out.println("Sending page " + (i/pageSize + 1) + " (" + page.size() + " notifications) to PM");
 
-                for (NotificationView n : page) {
-                    String msg = formatForTelegram(n);
-                    System.out.println("Sending message: " + msg);
-                    messengerPort.sendToPm(msg);
 
-                    if (delayMs > 0) {
-                        try {
-                            Thread.sleep(delayMs);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            break;
-                        }
-                    }
+    // Pacing to the Telegram limits happens in the MessengerPort implementation
+    private int sendNotifications(String target, List<NotificationView> notifications) throws IOException {
+        SchedulerProperties.Cards cards = schedulerProperties.getCards();
+        int sent = 0;
+        for (NotificationView n : notifications) {
+            if (!holdsLease(target)) break;
+            String msg = formatForTelegram(n);
+            Set<String> ids = Set.copyOf(NotificationMerger.idsOf(n));
+            try {
+                if (cards != null && cards.isEnabled() && n.issueId != null && !n.issueId.isBlank()) {
+                    sendOrEditCard(target, n.issueId, msg, Duration.parse(cards.getEditWindow()));
+                } else {
+                    System.out.println("Sending message to " + target + ": " + msg);
+                    send(target, msg);
                 }
+            } catch (IOException e) {
+                if (parkAfterFailure(ids, e)) continue;
+                throw e;
             }
-        } else {
-            // Send all at once
-            for (NotificationView n : notifications) {
-                String msg = formatForTelegram(n);
-                System.out.println("Sending message: " + msg);
-                messengerPort.sendToPm(msg);
-            }
+            storagePort.markAsSent(ids);
+            sent++;
         }
+        return sent;
     }
 
-    private int parseDurationToMs(String duration) {
-        if (duration.startsWith("PT") && duration.endsWith("S")) {
+    private Delivered sendDigests(String target, List<NotificationView> notifications,
+                                  SchedulerProperties.Digest digest, boolean allowHold) throws IOException {
+        long now = System.currentTimeMillis();
+        long maxWaitMs = Duration.parse(digest.getMaxWait()).toMillis();
+        List<String> formatted = notifications.stream().map(this::formatForTelegram).collect(Collectors.toList());
+        List<List<Integer>> digests = DigestPacker.pack(formatted, digest.getMaxCount(), digest.getMaxChars());
+
+        int sent = 0;
+        for (int d = 0; d < digests.size(); d++) {
+            List<NotificationView> items = digests.get(d).stream().map(notifications::get).collect(Collectors.toList());
+            items.forEach(n -> NotificationMerger.idsOf(n).forEach(id -> digestQueuedAt.putIfAbsent(id, now)));
+
+            // Only the last digest can be incomplete; it waits until its oldest notification has waited max-wait
+            long oldest = items.stream()
+                    .flatMap(n -> NotificationMerger.idsOf(n).stream())
+                    .mapToLong(id -> digestQueuedAt.getOrDefault(id, now))
+                    .min().orElse(now);
+            boolean incomplete = d == digests.size() - 1 && items.size() < digest.getMaxCount();
+            if (allowHold && incomplete && now - oldest < maxWaitMs) {
+                System.out.println("Holding " + items.size() + " notifications for " + target + " up to "
+                        + (oldest + maxWaitMs - now) + "ms to fill a digest");
+                return new Delivered(sent, oldest + maxWaitMs);
+            }
+
+            if (!holdsLease(target)) break;
+            String msg = DigestPacker.join(digests.get(d).stream().map(formatted::get).collect(Collectors.toList()));
+            System.out.println("Sending digest of " + items.size() + " notifications to " + target + ": " + msg);
+            Set<String> ids = items.stream()
+                    .flatMap(n -> NotificationMerger.idsOf(n).stream())
+                    .collect(Collectors.toSet());
             try {
-                String seconds = duration.substring(2, duration.length() - 1);
-                return Integer.parseInt(seconds) * 1000;
-            } catch (NumberFormatException e) {
-                return 1000; // Default 1 second
+                send(target, msg);
+            } catch (IOException e) {
+                if (!parkAfterFailure(ids, e)) throw e;
+                ids.forEach(digestQueuedAt::remove);
+                continue;
+            }
+            storagePort.markAsSent(ids);
+            ids.forEach(digestQueuedAt::remove);
+            sent += items.size();
+        }
+        return new Delivered(sent, 0);
+    }
+
+    /**
+     * Edit the issue's card in this chat if it was sent within the edit window, otherwise send a new card.
+     * When Telegram refuses the edit (card deleted or too old) a new card replaces it.
+     */
+    private void sendOrEditCard(String target, String issueId, String msg, Duration editWindow) throws IOException {
+        String chatId = NotificationRouter.PM.equals(target) ? null : target;
+        LocalDateTime now = LocalDateTime.now();
+        Long messageId = storagePort.findCard(issueId, target, now.minus(editWindow));
+        if (messageId != null) {
+            System.out.println("Editing card " + messageId + " for " + issueId + " in " + target + ": " + msg);
+            if (messengerPort.editCard(chatId, messageId, msg)) {
+                return;
             }
+            System.out.println("Card " + messageId + " for " + issueId + " can no longer be edited, sending a new one");
+        } else {
+            System.out.println("Sending card for " + issueId + " to " + target + ": " + msg);
         }
-        return 1000; // Default 1 second
+        storagePort.saveCard(issueId, target, messengerPort.sendCard(chatId, msg));
     }
 
+    /**
+     * With several replicas only the lease holder sends. Checked before every message, since a send loop
+     * can outlast the lease; whatever is left stays in the outbox for the new leader.
+     */
+    private boolean holdsLease(String target) {
+        if (leaderElection == null || leaderElection.isLeader()) {
+            return true;
+        }
+        System.out.println("[Leader] Scheduler lease lost, leaving the rest for " + target + " in the outbox");
+        return false;
+    }
+
+    /**
+     * Count a failed send against the notifications it carried. A notification the messenger keeps
+     * rejecting is parked after max-attempts, so it no longer holds up its chat; other failures only alert.
+     * @return true if parked, so delivery can move on to the next message
+     */
+    private boolean parkAfterFailure(Set<String> ids, IOException e) {
+        SchedulerProperties.Outbox outbox = schedulerProperties.getOutbox();
+        int attempts = storagePort.recordFailedAttempt(ids);
+        if (outbox == null || attempts < outbox.getMaxAttempts()) {
+            return false;
+        }
+        if (e instanceof MessageRejectedException) {
+            storagePort.park(ids);
+            System.err.println("[Outbox] Parked " + ids + " after " + attempts + " rejected sends: " + e.getMessage());
+            return true;
+        }
+        System.err.println("[Outbox] " + ids + " still failing after " + attempts + " attempts: " + e.getMessage());
+        return false;
+    }
+
+    private void send(String target, String msg) throws IOException {
+        if (NotificationRouter.PM.equals(target)) {
+            messengerPort.sendToPm(msg);
+        } else {
+            messengerPort.sendToChat(target, msg);
+        }
+    }
 
     private String formatForTelegram(NotificationView n) {
         return Formatter.toTelegramMarkdown(n);
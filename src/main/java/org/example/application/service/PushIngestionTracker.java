@@ -0,0 +1,97 @@
+package org.example.application.service;
+
+import org.example.domain.view.NotificationView;
+import org.example.infrastructure.youtrack.YouTrackProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers which changes were recently delivered through the YouTrack webhook.
+ * Pushed events don't carry YouTrack notification IDs, and the issue's updated timestamp the workflow
+ * pushes need not equal the polled notification's own updated timestamp. So the polling safety-net sweep
+ * matches per issue within youtrack.webhook.match-tolerance: each push covers the one polled notification
+ * of its issue closest to it. Other changes to the same issue, however close in time, are still sent.
+ */
+@Component
+public class PushIngestionTracker {
+
+    private final YouTrackProperties properties;
+    // issueId -> {updated, recorded at} of each push not yet matched to a polled notification
+    private final Map<String, List<long[]>> pushes = new HashMap<>();
+
+    public PushIngestionTracker(YouTrackProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.getWebhook().isEnabled();
+    }
+
+    /**
+     * Record that a change was delivered through the webhook
+     * @param updated the issue's updated timestamp reported by the workflow
+     */
+    public synchronized void recordPush(String issueId, long updated) {
+        if (issueId == null || issueId.isBlank()) return;
+        long now = System.currentTimeMillis();
+        pushes.computeIfAbsent(issueId, id -> new ArrayList<>()).add(new long[] {updated, now});
+        long cutoff = now - Duration.parse(properties.getWebhook().getPushRetention()).toMillis();
+        pushes.values().forEach(list -> list.removeIf(push -> push[1] < cutoff));
+        pushes.values().removeIf(List::isEmpty);
+    }
+
+    /**
+     * Find the polled notifications for changes already delivered through the webhook. Each push claims
+     * the closest unclaimed notification of its issue within the tolerance and is then forgotten.
+     * @return the IDs of the covered notifications
+     */
+    public synchronized Set<String> claimCovered(List<NotificationView> polled) {
+        Set<String> covered = new HashSet<>();
+        if (!isEnabled() || pushes.isEmpty()) return covered;
+        long toleranceMs = Duration.parse(properties.getWebhook().getMatchTolerance()).toMillis();
+
+        Map<String, List<NotificationView>> byIssue = new HashMap<>();
+        for (NotificationView n : polled) {
+            if (n.issueId != null && pushes.containsKey(n.issueId) && updatedOf(n) != null) {
+                byIssue.computeIfAbsent(n.issueId, id -> new ArrayList<>()).add(n);
+            }
+        }
+        byIssue.forEach((issueId, candidates) -> {
+            Iterator<long[]> it = pushes.get(issueId).iterator();
+            while (it.hasNext()) {
+                long pushed = it.next()[0];
+                NotificationView closest = null;
+                long closestGap = Long.MAX_VALUE;
+                for (NotificationView n : candidates) {
+                    long gap = Math.abs(updatedOf(n) - pushed);
+                    if (gap <= toleranceMs && gap < closestGap && !covered.contains(n.id)) {
+                        closest = n;
+                        closestGap = gap;
+                    }
+                }
+                if (closest != null) {
+                    covered.add(closest.id);
+                    it.remove();
+                }
+            }
+        });
+        pushes.values().removeIf(List::isEmpty);
+        return covered;
+    }
+
+    private static Long updatedOf(NotificationView n) {
+        try {
+            return Long.parseLong(n.updated);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
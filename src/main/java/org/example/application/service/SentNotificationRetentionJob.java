@@ -0,0 +1,124 @@
+package org.example.application.service;
+
+import org.example.domain.port.MetricsSource;
+import org.example.domain.port.NotificationStoragePort;
+import org.example.infrastructure.scheduler.SchedulerProperties;
+import org.example.infrastructure.storage.StorageProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Deletes sent notification records and parked outbox entries older than storage.cleanup.days-to-keep,
+ * and issue cards past the edit window, which are never looked up again.
+ * Rows go in bounded batches, each in its own short transaction, so a large backlog never holds long locks.
+ */
+@Component
+@ConditionalOnProperty(prefix = "storage.cleanup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SentNotificationRetentionJob implements MetricsSource {
+
+    private final NotificationStoragePort storagePort;
+    private final StorageProperties.Cleanup cleanup;
+    private final SchedulerProperties.Cards cards;
+
+    private volatile long lastRunRemoved = 0;
+    private volatile long lastRunMs = 0;
+    private volatile long totalRemoved = 0;
+    private volatile long totalCardsRemoved = 0;
+    private volatile long totalParkedRemoved = 0;
+    private volatile LocalDateTime lastRunAt = null;
+
+    public SentNotificationRetentionJob(NotificationStoragePort storagePort, StorageProperties storageProperties,
+                                        SchedulerProperties schedulerProperties) {
+        this.storagePort = storagePort;
+        this.cleanup = storageProperties.getCleanup();
+        this.cards = schedulerProperties.getCards();
+    }
+
+    @Scheduled(initialDelayString = "PT1M", fixedDelayString = "${storage.cleanup.interval:PT1H}")
+    public void purgeExpired() {
+        try {
+            runOnce();
+        } catch (Exception e) {
+            System.err.println("[Retention] Cleanup failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete expired rows batch by batch until a short batch shows nothing is left
+     */
+    public long runOnce() throws InterruptedException {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(cleanup.getDaysToKeep());
+        int batchSize = Math.max(1, cleanup.getBatchSize());
+        long pauseMs = Duration.parse(cleanup.getBatchPause()).toMillis();
+
+        long start = System.currentTimeMillis();
+        long removed = 0;
+        int batches = 0;
+        while (true) {
+            int deleted = storagePort.deleteSentBefore(cutoff, batchSize).size();
+            removed += deleted;
+            batches++;
+            if (deleted < batchSize) {
+                break;
+            }
+            if (pauseMs > 0) {
+                Thread.sleep(pauseMs);
+            }
+        }
+        purgeParked(cutoff);
+        evictCards();
+        long elapsed = System.currentTimeMillis() - start;
+
+        lastRunRemoved = removed;
+        lastRunMs = elapsed;
+        totalRemoved += removed;
+        lastRunAt = LocalDateTime.now();
+        System.out.println("[Retention] Removed " + removed + " notifications sent before " + cutoff
+                + " in " + batches + " batch(es), " + elapsed + "ms");
+        return removed;
+    }
+
+    // Parked notifications are never retried, only kept for as long as sent records so they can be looked into
+    private void purgeParked(LocalDateTime cutoff) {
+        int purged = storagePort.deleteParkedBefore(cutoff);
+        totalParkedRemoved += purged;
+        if (purged > 0) {
+            System.out.println("[Retention] Removed " + purged + " parked notifications parked before " + cutoff);
+        }
+    }
+
+    private void evictCards() {
+        if (cards == null) {
+            return;
+        }
+        int evicted = storagePort.deleteCardsBefore(LocalDateTime.now().minus(Duration.parse(cards.getEditWindow())));
+        totalCardsRemoved += evicted;
+        if (evicted > 0) {
+            System.out.println("[Retention] Evicted " + evicted + " cards older than the edit window");
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "storage.retention";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("daysToKeep", cleanup.getDaysToKeep());
+        m.put("lastRunAt", lastRunAt != null ? lastRunAt.toString() : null);
+        m.put("lastRunRemoved", lastRunRemoved);
+        m.put("lastRunMs", lastRunMs);
+        m.put("totalRemoved", totalRemoved);
+        m.put("totalCardsRemoved", totalCardsRemoved);
+        m.put("totalParkedRemoved", totalParkedRemoved);
+        return m;
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.application.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.domain.view.NotificationView;
+import org.example.infrastructure.youtrack.YouTrackProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Turns issue-change events pushed by a YouTrack workflow script into notification views and hands them
+ * to the same dedup/format/send pipeline as polling.
+ *
+ * Expected payload, a single event or an array of events:
+ * {"id": "optional event id", "issueId": "DEMO-1", "summary": "...", "state": "...", "assignee": "...",
+ *  "priority": "...", "header": "...", "comment": "...", "tags": ["..."], "fields": {"Type": "Bug"},
+ *  "updated": 1700000000000}
+ *
+ * "updated" is required and should be the issue's updated timestamp: the polling sweep recognises the
+ * YouTrack notification for a pushed change by issue and the closest updated value within
+ * youtrack.webhook.match-tolerance, since the notification's own timestamp can be a little later.
+ */
+@Component
+public class YouTrackWebhookHandler {
+
+    private final NotifyIssueService notifyIssueService;
+    private final YouTrackProperties properties;
+    private final ObjectMapper om = new ObjectMapper();
+
+    public YouTrackWebhookHandler(NotifyIssueService notifyIssueService, YouTrackProperties properties) {
+        this.notifyIssueService = notifyIssueService;
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.getWebhook().isEnabled();
+    }
+
+    /**
+     * Check the shared secret sent by the workflow. Without a configured secret every push is refused,
+     * since anyone could otherwise have text sent to the PM chat.
+     */
+    public boolean isAuthorized(String secret) {
+        String expected = properties.getWebhook().getSecret();
+        if (expected == null || expected.isBlank()) {
+            System.err.println("[Webhook] Refusing push: youtrack.webhook.secret is not configured");
+            return false;
+        }
+        // Constant-time, so the secret cannot be guessed from response times
+        return secret != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Process incoming webhook payload
+     * @param payload The event JSON, a single object or an array
+     * @return the number of notifications sent
+     * @throws IllegalArgumentException if the payload is invalid
+     * @throws IOException if sending fails
+     */
+    public int processWebhook(String payload) throws IOException {
+        JsonNode root;
+        try {
+            root = om.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid webhook payload: " + e.getOriginalMessage(), e);
+        }
+        List<NotificationView> views = new ArrayList<>();
+        if (root.isArray()) {
+            for (JsonNode event : root) {
+                views.add(toView(event));
+            }
+        } else if (root.isObject()) {
+            views.add(toView(root));
+        } else {
+            throw new IllegalArgumentException("Expected a JSON object or array of events");
+        }
+        return notifyIssueService.deliverPushed(views);
+    }
+
+    private NotificationView toView(JsonNode event) {
+        String issueId = event.path("issueId").asText("");
+        if (issueId.isEmpty()) {
+            throw new IllegalArgumentException("Event without issueId");
+        }
+        JsonNode updatedNode = event.path("updated");
+        if (!updatedNode.canConvertToLong()) {
+            throw new IllegalArgumentException("Event for " + issueId + " without a numeric updated timestamp");
+        }
+        long updated = updatedNode.asLong();
+
+        NotificationView x = new NotificationView();
+        // Without an id from the workflow the change itself is the key, so a retried push is not sent twice
+        x.id = event.path("id").asText("push:" + issueId + ":" + updated);
+        x.issueId = issueId;
+        x.title = event.path("summary").asText("");
+        x.status = event.path("state").asText("");
+        x.assignee = event.path("assignee").asText("");
+        x.priority = event.path("priority").asText("");
+        x.header = event.path("header").asText("");
+        x.comment = event.path("comment").asText("");
+        x.updated = String.valueOf(updated);
+        x.content = "";
+
+        List<String> tags = new ArrayList<>();
+        event.path("tags").forEach(t -> tags.add(t.asText("")));
+        x.tags = tags;
+
+        if (event.path("fields").isObject()) {
+            x.fields = new LinkedHashMap<>();
+            event.path("fields").fields().forEachRemaining(f -> x.fields.put(f.getKey(), f.getValue().asText("")));
+        }
+
+        String base = properties.getBaseUrl() == null ? "" : properties.getBaseUrl().replaceAll("/+$", "");
+        x.link = event.path("link").asText(base + "/issue/" + issueId);
+        return x;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.domain.model;
+
+/**
+ * Helpers for comparing YouTrack "updated" timestamps used as polling cursors.
+ * YouTrack sends epoch milliseconds; anything that is not numeric falls back to string order.
+ */
+public final class TimestampCursor {
+    private TimestampCursor() {}
+
+    /**
+     * Check whether a timestamp is at or after the cursor. The cursor's own millisecond is kept, since a
+     * notification can arrive later with the same timestamp; dedup by ID drops the ones already sent.
+     * A blank timestamp cannot be placed, so it is treated as newer to avoid dropping it
+     */
+    public static boolean isAtOrAfter(String timestamp, String cursor) {
+        if (isBlank(cursor) || isBlank(timestamp)) return true;
+        return compare(timestamp, cursor) >= 0;
+    }
+
+    /**
+     * Return the newer of two timestamps, ignoring blank values
+     */
+    public static String max(String a, String b) {
+        if (isBlank(a)) return isBlank(b) ? a : b;
+        if (isBlank(b)) return a;
+        return compare(a, b) >= 0 ? a : b;
+    }
+
+    /**
+     * Order two timestamps oldest first; blank ones sort last, as isAtOrAfter treats them as newer
+     */
+    public static int compareBlankLast(String a, String b) {
+        if (isBlank(a)) return isBlank(b) ? 0 : 1;
+        if (isBlank(b)) return -1;
+        return compare(a, b);
+    }
+
+    private static int compare(String a, String b) {
+        try {
+            return Long.compare(Long.parseLong(a.trim()), Long.parseLong(b.trim()));
+        } catch (NumberFormatException e) {
+            return a.compareTo(b);
+        }
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+}
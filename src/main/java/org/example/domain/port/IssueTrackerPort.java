@@ -13,6 +13,16 @@ public interface IssueTrackerPort {
      * If timestamp is null, fetch all notifications
      */
     List<NotificationView> fetchNotificationsFromTimestamp(String timestampCursor, int top) throws IOException;
-}
 
+    /**
+     * Stream notifications from a specific timestamp cursor
+     * Each notification is handed to the consumer as soon as it is decoded, so the
+     * whole window is never held in memory at once
+     */
+    void streamNotificationsFromTimestamp(String timestampCursor, int top, NotificationConsumer consumer) throws IOException;
 
+    @FunctionalInterface
+    interface NotificationConsumer {
+        void accept(NotificationView notification) throws IOException;
+    }
+}
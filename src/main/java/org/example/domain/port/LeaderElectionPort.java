@@ -0,0 +1,21 @@
+package org.example.domain.port;
+
+/**
+ * Decides which replica runs the notification poller when several share one database
+ */
+public interface LeaderElectionPort {
+    /**
+     * Whether this instance currently holds the scheduler lease
+     */
+    boolean isLeader();
+
+    /**
+     * Whether polling is switched on, as last set by a /pull or /stop command on any replica
+     */
+    boolean isPollingEnabled();
+
+    /**
+     * Switch polling on or off for whichever replica is leader
+     */
+    void setPollingEnabled(boolean enabled);
+}
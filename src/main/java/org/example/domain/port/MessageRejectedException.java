@@ -0,0 +1,14 @@
+package org.example.domain.port;
+
+import java.io.IOException;
+
+/**
+ * The messenger refused the message itself (bad markup, too long, chat gone), so sending it again fails
+ * the same way. Other IOExceptions from a MessengerPort may be transient.
+ */
+public class MessageRejectedException extends IOException {
+
+    public MessageRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -7,6 +7,17 @@ public interface MessengerPort {
 
     void sendToChat(String chatId, String text) throws IOException;
 
+    /**
+     * Send a message that may be edited later and return its message_id; a null chatId means the PM chat
+     */
+    long sendCard(String chatId, String text) throws IOException;
+
+    /**
+     * Replace the text of a message sent with sendCard
+     * @return false if the messenger refused to edit that message (deleted, too old), so a new one should be sent
+     */
+    boolean editCard(String chatId, long messageId, String text) throws IOException;
+
 }
 
 
@@ -0,0 +1,15 @@
+package org.example.domain.port;
+
+import java.util.Map;
+
+public interface MetricsSource {
+    /**
+     * Name the metrics are reported under, e.g. "youtrack.http"
+     */
+    String metricsName();
+
+    /**
+     * Current metric values by name
+     */
+    Map<String, Object> metrics();
+}
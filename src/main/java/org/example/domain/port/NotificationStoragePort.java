@@ -1,10 +1,15 @@
 package org.example.domain.port;
 
+import org.example.domain.view.NotificationView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 public interface NotificationStoragePort {
     /**
-     * Mark multiple notification IDs as sent
+     * Mark multiple notification IDs as sent, removing them from the pending outbox
      */
     void markAsSent(Set<String> notificationIds);
 
@@ -12,4 +17,66 @@ public interface NotificationStoragePort {
      * Get all sent notification IDs
      */
     Set<String> getAllSentIds();
+
+    /**
+     * Return the given notification IDs that have not been sent yet, keeping their order
+     */
+    Set<String> filterUnsent(Collection<String> notificationIds);
+
+    /**
+     * Get the newest notification "updated" timestamp already handled, or null if polling never ran
+     */
+    String getLastSeenTimestamp();
+
+    /**
+     * Persist the newest notification "updated" timestamp handled so polling resumes from it after a restart
+     */
+    void saveLastSeenTimestamp(String timestamp);
+
+    /**
+     * Delete at most batchSize sent records older than the cutoff and return the removed IDs.
+     * Callers repeat until fewer than batchSize come back.
+     */
+    Set<String> deleteSentBefore(LocalDateTime cutoff, int batchSize);
+
+    /**
+     * Record notifications as pending delivery, so a crash or failed send resumes them instead of resending the batch
+     */
+    void enqueuePending(List<NotificationView> notifications);
+
+    /**
+     * Get notifications recorded as pending and not yet marked as sent, oldest first
+     */
+    List<NotificationView> getPending();
+
+    /**
+     * Count a failed delivery of pending notifications
+     * @return the highest attempt count among them after this failure, 0 if none is pending
+     */
+    int recordFailedAttempt(Collection<String> notificationIds);
+
+    /**
+     * Stop retrying pending notifications: they stay stored but getPending no longer returns them
+     */
+    void park(Collection<String> notificationIds);
+
+    /**
+     * Drop notifications parked before the cutoff and return how many were removed
+     */
+    int deleteParkedBefore(LocalDateTime cutoff);
+
+    /**
+     * Get the message_id of the card last sent for an issue in a chat, or null if there is none sent since the given time
+     */
+    Long findCard(String issueId, String chatId, LocalDateTime sentSince);
+
+    /**
+     * Remember the card just sent for an issue in a chat, replacing any older one
+     */
+    void saveCard(String issueId, String chatId, long messageId);
+
+    /**
+     * Forget cards sent before the cutoff and return how many were removed
+     */
+    int deleteCardsBefore(LocalDateTime cutoff);
 }
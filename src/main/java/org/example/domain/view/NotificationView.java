@@ -1,6 +1,7 @@
 package org.example.domain.view;
 
 import java.util.List;
+import java.util.Map;
 
 public class NotificationView {
     public String id;
@@ -17,6 +18,8 @@ public class NotificationView {
     public String comment;
     public String link;
     public List<String> tags;
+    public Map<String, String> fields; // projected custom fields by name, e.g. State, Type, Sprint
+    public List<String> mergedIds; // older notifications on the same issue folded into this one by the debounce window
 }
 
 
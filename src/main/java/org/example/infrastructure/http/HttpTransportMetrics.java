@@ -0,0 +1,139 @@
+package org.example.infrastructure.http;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import org.example.domain.port.MetricsSource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Per-transport OkHttp counters: calls, latency, connections opened vs. reused and bytes on the wire.
+ * Response bytes are counted before OkHttp's transparent gzip decoding, so they reflect compressed size.
+ * Latency percentiles are read from fixed buckets, so they report the bucket's upper bound.
+ */
+public class HttpTransportMetrics implements EventListener.Factory, MetricsSource {
+
+    // Upper bounds of the latency buckets in ms; the last bucket is everything slower
+    private static final long[] LATENCY_BUCKETS_MS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final String name;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong connectionsAcquired = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS_MS.length + 1);
+
+    public HttpTransportMetrics(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallListener();
+    }
+
+    public long getConnectionsOpened() { return connectionsOpened.get(); }
+
+    public long getConnectionsReused() { return Math.max(0, connectionsAcquired.get() - connectionsOpened.get()); }
+
+    public long getBytesReceived() { return bytesReceived.get(); }
+
+    @Override
+    public String metricsName() {
+        return name;
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long completed = calls.get();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("calls", completed);
+        m.put("failedCalls", failedCalls.get());
+        m.put("connectionsOpened", connectionsOpened.get());
+        m.put("connectionsReused", getConnectionsReused());
+        m.put("bytesSent", bytesSent.get());
+        m.put("bytesReceived", bytesReceived.get());
+        m.put("avgLatencyMs", completed == 0 ? 0 : totalLatencyNanos.get() / completed / 1_000_000);
+        m.put("maxLatencyMs", maxLatencyNanos.get() / 1_000_000);
+        m.put("p50LatencyMs", latencyPercentileMs(0.50));
+        m.put("p95LatencyMs", latencyPercentileMs(0.95));
+        m.put("p99LatencyMs", latencyPercentileMs(0.99));
+        return m;
+    }
+
+    private long latencyPercentileMs(double percentile) {
+        long total = 0;
+        for (int i = 0; i < latencyBuckets.length(); i++) total += latencyBuckets.get(i);
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+            seen += latencyBuckets.get(i);
+            if (seen >= rank) return LATENCY_BUCKETS_MS[i];
+        }
+        return maxLatencyNanos.get() / 1_000_000;
+    }
+
+    private final class CallListener extends EventListener {
+        private long startNanos;
+
+        @Override
+        public void callStart(Call call) {
+            startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectionsOpened.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            connectionsAcquired.incrementAndGet();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            bytesSent.addAndGet(byteCount);
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            bytesReceived.addAndGet(byteCount);
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            record();
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            failedCalls.incrementAndGet();
+            record();
+        }
+
+        private void record() {
+            long elapsed = System.nanoTime() - startNanos;
+            calls.incrementAndGet();
+            totalLatencyNanos.addAndGet(elapsed);
+            maxLatencyNanos.accumulate(elapsed);
+            long elapsedMs = elapsed / 1_000_000;
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_MS.length && elapsedMs > LATENCY_BUCKETS_MS[bucket]) bucket++;
+            latencyBuckets.incrementAndGet(bucket);
+        }
+    }
+}
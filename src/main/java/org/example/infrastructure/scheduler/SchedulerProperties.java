@@ -8,8 +8,14 @@ public class SchedulerProperties {
     private String fixedDelay = "PT5S";
     private String initialDelay = "PT0S";
     private int top = 1000;
-    private Pagination pagination = new Pagination();
     private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Adaptive adaptive = new Adaptive();
+    private LeaderElection leaderElection = new LeaderElection();
+    private Digest digest = new Digest();
+    private Pipeline pipeline = new Pipeline();
+    private Debounce debounce = new Debounce();
+    private Cards cards = new Cards();
+    private Outbox outbox = new Outbox();
 
     public boolean isEnabled() { return enabled; }
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
@@ -19,23 +25,22 @@ public class SchedulerProperties {
     public void setInitialDelay(String initialDelay) { this.initialDelay = initialDelay; }
     public int getTop() { return top; }
     public void setTop(int top) { this.top = top; }
-    public Pagination getPagination() { return pagination; }
-    public void setPagination(Pagination pagination) { this.pagination = pagination; }
     public CircuitBreaker getCircuitBreaker() { return circuitBreaker; }
     public void setCircuitBreaker(CircuitBreaker circuitBreaker) { this.circuitBreaker = circuitBreaker; }
-
-    public static class Pagination {
-        private boolean enabled = false;
-        private int pageSize = 1;
-        private String delayBetweenMessages = "PT1S";
-
-        public boolean isEnabled() { return enabled; }
-        public void setEnabled(boolean enabled) { this.enabled = enabled; }
-        public int getPageSize() { return pageSize; }
-        public void setPageSize(int pageSize) { this.pageSize = pageSize; }
-        public String getDelayBetweenMessages() { return delayBetweenMessages; }
-        public void setDelayBetweenMessages(String delayBetweenMessages) { this.delayBetweenMessages = delayBetweenMessages; }
-    }
+    public Adaptive getAdaptive() { return adaptive; }
+    public void setAdaptive(Adaptive adaptive) { this.adaptive = adaptive; }
+    public Digest getDigest() { return digest; }
+    public void setDigest(Digest digest) { this.digest = digest; }
+    public Pipeline getPipeline() { return pipeline; }
+    public void setPipeline(Pipeline pipeline) { this.pipeline = pipeline; }
+    public Debounce getDebounce() { return debounce; }
+    public void setDebounce(Debounce debounce) { this.debounce = debounce; }
+    public Cards getCards() { return cards; }
+    public void setCards(Cards cards) { this.cards = cards; }
+    public Outbox getOutbox() { return outbox; }
+    public void setOutbox(Outbox outbox) { this.outbox = outbox; }
+    public LeaderElection getLeaderElection() { return leaderElection; }
+    public void setLeaderElection(LeaderElection leaderElection) { this.leaderElection = leaderElection; }
 
     public static class CircuitBreaker {
         private int maxConsecutiveFailures = 3;
@@ -55,6 +60,109 @@ public class SchedulerProperties {
         public boolean isSendSingleAlert() { return sendSingleAlert; }
         public void setSendSingleAlert(boolean sendSingleAlert) { this.sendSingleAlert = sendSingleAlert; }
     }
-}
 
+    public static class Adaptive {
+        private boolean enabled = false;
+        private String minDelay = "PT2S";
+        private String maxDelay = "PT2M";
+        private double backoffMultiplier = 2.0;
+        private int minTop = 50;
+        private int maxTop = 5000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getMinDelay() { return minDelay; }
+        public void setMinDelay(String minDelay) { this.minDelay = minDelay; }
+
+        public String getMaxDelay() { return maxDelay; }
+        public void setMaxDelay(String maxDelay) { this.maxDelay = maxDelay; }
+
+        public double getBackoffMultiplier() { return backoffMultiplier; }
+        public void setBackoffMultiplier(double backoffMultiplier) { this.backoffMultiplier = backoffMultiplier; }
+
+        public int getMinTop() { return minTop; }
+        public void setMinTop(int minTop) { this.minTop = minTop; }
+
+        public int getMaxTop() { return maxTop; }
+        public void setMaxTop(int maxTop) { this.maxTop = maxTop; }
+    }
+
+    public static class LeaderElection {
+        private boolean enabled = false; // only the lease holder polls when several replicas share the database
+        private String leaseTimeout = "PT30S"; // a standby takes over this long after the last heartbeat
+        private String heartbeatInterval = "PT10S";
+        private String instanceId = ""; // defaults to host, pid and a random suffix
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getLeaseTimeout() { return leaseTimeout; }
+        public void setLeaseTimeout(String leaseTimeout) { this.leaseTimeout = leaseTimeout; }
+
+        public String getHeartbeatInterval() { return heartbeatInterval; }
+        public void setHeartbeatInterval(String heartbeatInterval) { this.heartbeatInterval = heartbeatInterval; }
+
+        public String getInstanceId() { return instanceId; }
+        public void setInstanceId(String instanceId) { this.instanceId = instanceId; }
+    }
+
+    public static class Digest {
+        private boolean enabled = false; // pack several notifications into one Telegram message
+        private int maxCount = 10; // notifications per digest
+        private int maxChars = 4000; // joined length, never above Telegram's 4096
+        private String maxWait = "PT10S"; // how long an incomplete digest may wait for more notifications
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getMaxCount() { return maxCount; }
+        public void setMaxCount(int maxCount) { this.maxCount = maxCount; }
+
+        public int getMaxChars() { return maxChars; }
+        public void setMaxChars(int maxChars) { this.maxChars = maxChars; }
+
+        public String getMaxWait() { return maxWait; }
+        public void setMaxWait(String maxWait) { this.maxWait = maxWait; }
+    }
+
+    public static class Pipeline {
+        private boolean enabled = true; // send from worker threads instead of the polling thread
+        private int queueCapacity = 1000; // per chat; what does not fit waits in the outbox for the next poll
 
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    }
+
+    public static class Debounce {
+        private boolean enabled = false; // merge notifications on the same issue into one update
+        private String window = "PT30S"; // counted from the issue's first pending notification
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getWindow() { return window; }
+        public void setWindow(String window) { this.window = window; }
+    }
+
+    public static class Cards {
+        private boolean enabled = false; // edit the issue's last message in place instead of sending a new one
+        private String editWindow = "PT1H"; // how long after a card was sent updates still edit it
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getEditWindow() { return editWindow; }
+        public void setEditWindow(String editWindow) { this.editWindow = editWindow; }
+    }
+
+    public static class Outbox {
+        private int maxAttempts = 5; // failed sends before a rejected notification is parked
+
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+    }
+}
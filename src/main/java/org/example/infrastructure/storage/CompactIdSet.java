@@ -0,0 +1,233 @@
+package org.example.infrastructure.storage;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Set of notification IDs that stores the usual YouTrack "&lt;prefix&gt;-&lt;seq&gt;" form (e.g. "4-1234")
+ * as a single long in an open-addressing table, about 13 bytes per ID instead of a String in a HashSet.
+ * IDs in any other form go to a plain HashSet. Strings are rebuilt on iteration.
+ * Not thread-safe; callers guard concurrent access.
+ */
+public class CompactIdSet extends AbstractSet<String> {
+
+    private static final long EMPTY = -1L; // never a valid key, the prefix is at most Integer.MAX_VALUE
+    private static final double LOAD_FACTOR = 0.6;
+
+    private long[] keys;
+    private int mask;
+    private int packedSize = 0;
+    private int resizeAt;
+    private final Set<String> others = new HashSet<>();
+
+    public CompactIdSet() {
+        this(16);
+    }
+
+    public CompactIdSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Copy another set; from a CompactIdSet this is a plain array copy
+     */
+    public CompactIdSet(Collection<String> ids) {
+        if (ids instanceof CompactIdSet other) {
+            keys = other.keys.clone();
+            mask = other.mask;
+            packedSize = other.packedSize;
+            resizeAt = other.resizeAt;
+            others.addAll(other.others);
+        } else {
+            allocate(tableSizeFor(ids.size()));
+            addAll(ids);
+        }
+    }
+
+    /**
+     * Pack "&lt;prefix&gt;-&lt;seq&gt;" into (prefix &lt;&lt; 32) | seq, or return EMPTY if the ID does not
+     * round-trip exactly (leading zeros, signs, other separators or out-of-range numbers)
+     */
+    static long pack(String id) {
+        int dash = id.indexOf('-');
+        if (dash <= 0 || dash == id.length() - 1) return EMPTY;
+        long prefix = parseDigits(id, 0, dash);
+        long seq = parseDigits(id, dash + 1, id.length());
+        if (prefix < 0 || prefix > Integer.MAX_VALUE || seq < 0 || seq > 0xFFFFFFFFL) return EMPTY;
+        return (prefix << 32) | seq;
+    }
+
+    private static long parseDigits(String s, int from, int to) {
+        if (to - from > 10 || (s.charAt(from) == '0' && to - from > 1)) return -1;
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    static String unpack(long key) {
+        return (key >>> 32) + "-" + (key & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public boolean add(String id) {
+        long key = pack(id);
+        if (key == EMPTY) return others.add(id);
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return false;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++packedSize >= resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String id)) return false;
+        long key = pack(id);
+        if (key == EMPTY) return others.contains(id);
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof String id)) return false;
+        long key = pack(id);
+        if (key == EMPTY) return others.remove(id);
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                packedSize--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean changed = false;
+        for (Object o : c) {
+            changed |= remove(o);
+        }
+        return changed;
+    }
+
+    /**
+     * Backward-shift deletion: pull later entries of the probe run into the hole so lookups need no tombstones
+     */
+    private void shiftBack(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == EMPTY) break;
+            int home = slot(key);
+            // Move the entry if its home slot is not cyclically within (hole, slot]
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = key;
+                hole = slot;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+
+    @Override
+    public int size() {
+        return packedSize + others.size();
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        packedSize = 0;
+        others.clear();
+    }
+
+    /**
+     * Iterates packed IDs first, then the fallback set. Removal through the iterator is not supported.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private final long[] table = keys;
+            private final Iterator<String> rest = others.iterator();
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < table.length && table[from] == EMPTY) from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < table.length || rest.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (next < table.length) {
+                    String id = unpack(table[next]);
+                    next = advance(next + 1);
+                    return id;
+                }
+                if (!rest.hasNext()) throw new NoSuchElementException();
+                return rest.next();
+            }
+        };
+    }
+
+    /**
+     * Approximate heap used by the table and fallback set, for metrics
+     */
+    public long estimatedBytes() {
+        return 16L + keys.length * 8L + others.size() * 72L;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        for (long key : old) {
+            if (key == EMPTY) continue;
+            int slot = slot(key);
+            while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+            keys[slot] = key;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(16, expectedSize) / LOAD_FACTOR) + 1;
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
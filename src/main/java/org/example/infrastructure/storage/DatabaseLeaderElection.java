@@ -0,0 +1,141 @@
+package org.example.infrastructure.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.example.domain.port.LeaderElectionPort;
+import org.example.domain.port.MetricsSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lease-based leader election on a single row of the shared database.
+ * Every replica heartbeats: the holder extends the lease, the others take it over once it has expired.
+ * Lease times are read from the database clock, so the replicas' own clocks may disagree. The local view
+ * of leadership lasts one lease timeout from before the renewal was sent, measured on the monotonic clock,
+ * so it never outlives what the other replicas see.
+ */
+public class DatabaseLeaderElection implements LeaderElectionPort, MetricsSource {
+
+    private static final String LEASE_NAME = "notification-scheduler";
+
+    private final SchedulerLeaseRepository repository;
+    private final String instanceId;
+    private final long leaseTimeoutMs;
+    private final Runnable onAcquired; // brings local state up to date before this replica starts sending
+
+    private volatile boolean holding = false;
+    private volatile long renewedAtNanos = 0;
+    private volatile boolean pollingEnabled = false;
+    private volatile String currentOwner;
+    private volatile long acquisitions = 0;
+
+    public DatabaseLeaderElection(SchedulerLeaseRepository repository, String instanceId, long leaseTimeoutMs,
+                                  Runnable onAcquired) {
+        this.repository = repository;
+        this.instanceId = instanceId;
+        this.leaseTimeoutMs = leaseTimeoutMs;
+        this.onAcquired = onAcquired;
+    }
+
+    @Scheduled(fixedDelayString = "${scheduler.leader-election.heartbeat-interval:PT10S}")
+    public void heartbeat() {
+        try {
+            renew();
+        } catch (Exception e) {
+            // Leadership lapses on its own when the lease cannot be renewed in time
+            System.err.println("[Leader] Heartbeat failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Try to acquire or extend the lease and refresh the shared polling state
+     */
+    public synchronized boolean renew() {
+        boolean wasLeader = isLeader();
+        long startedNanos = System.nanoTime();
+        long now = repository.currentTimeMillis();
+        long expiresAt = now + leaseTimeoutMs;
+
+        boolean acquired = repository.acquire(LEASE_NAME, instanceId, now, expiresAt) > 0;
+        if (!acquired && !repository.existsById(LEASE_NAME)) {
+            try {
+                acquired = repository.insert(LEASE_NAME, instanceId, expiresAt, false) > 0;
+            } catch (DataIntegrityViolationException e) {
+                acquired = false; // another instance created it first
+            }
+        }
+        if (acquired && !wasLeader) {
+            // Another replica may have sent in the meantime; catch up before claiming leadership
+            holding = false;
+            onAcquired.run();
+        }
+        renewedAtNanos = startedNanos;
+        holding = acquired;
+        repository.findById(LEASE_NAME).ifPresent(lease -> {
+            pollingEnabled = lease.isPollingEnabled();
+            currentOwner = lease.getOwnerId();
+        });
+
+        if (acquired && !wasLeader) {
+            acquisitions++;
+            System.out.println("[Leader] " + instanceId + " acquired the scheduler lease");
+        } else if (!acquired && wasLeader) {
+            System.out.println("[Leader] " + instanceId + " lost the scheduler lease to " + currentOwner);
+        }
+        return acquired;
+    }
+
+    @Override
+    public boolean isLeader() {
+        return holding && System.nanoTime() - renewedAtNanos < TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMs);
+    }
+
+    @Override
+    public boolean isPollingEnabled() {
+        return pollingEnabled;
+    }
+
+    @Override
+    public synchronized void setPollingEnabled(boolean enabled) {
+        if (repository.updatePollingEnabled(LEASE_NAME, enabled) == 0) {
+            try {
+                repository.insert(LEASE_NAME, instanceId, 0, enabled);
+            } catch (DataIntegrityViolationException e) {
+                repository.updatePollingEnabled(LEASE_NAME, enabled);
+            }
+        }
+        pollingEnabled = enabled;
+    }
+
+    @PreDestroy
+    public synchronized void release() {
+        if (isLeader()) {
+            holding = false;
+            repository.release(LEASE_NAME, instanceId);
+            System.out.println("[Leader] " + instanceId + " released the scheduler lease");
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public String metricsName() {
+        return "scheduler.leader";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("instanceId", instanceId);
+        m.put("leader", isLeader());
+        m.put("currentOwner", currentOwner);
+        m.put("pollingEnabled", pollingEnabled);
+        m.put("acquisitions", acquisitions);
+        return m;
+    }
+}
@@ -1,50 +1,200 @@
 package org.example.infrastructure.storage;
 
 import org.example.domain.port.NotificationStoragePort;
+import org.example.domain.view.NotificationView;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class DatabaseNotificationStorage implements NotificationStoragePort {
 
+    private static final String NOTIFICATIONS_CURSOR = "notifications";
+    // Insert only when absent, so re-marking an ID keeps its original sent_at and it still ages out
+    private static final String INSERT_IF_ABSENT_SQL =
+            "MERGE INTO sent_notifications t USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP))) "
+                    + "AS s(notification_id, sent_at) ON t.notification_id = s.notification_id "
+                    + "WHEN NOT MATCHED THEN INSERT (notification_id, sent_at) VALUES (s.notification_id, s.sent_at)";
+
     private final SentNotificationRepository repository;
+    private final PollCursorRepository cursorRepository;
+    private final PendingNotificationRepository pendingRepository;
+    private final IssueCardRepository cardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int queryChunkSize;
+    private final int writeBatchSize;
 
-    public DatabaseNotificationStorage(SentNotificationRepository repository) {
+    public DatabaseNotificationStorage(SentNotificationRepository repository, PollCursorRepository cursorRepository,
+                                       PendingNotificationRepository pendingRepository,
+                                       IssueCardRepository cardRepository, JdbcTemplate jdbcTemplate,
+                                       int queryChunkSize, int writeBatchSize) {
         this.repository = repository;
+        this.cursorRepository = cursorRepository;
+        this.pendingRepository = pendingRepository;
+        this.cardRepository = cardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.queryChunkSize = Math.max(1, queryChunkSize);
+        this.writeBatchSize = Math.max(1, writeBatchSize);
     }
 
     @Override
     @Transactional
     public void markAsSent(Set<String> notificationIds) {
-        // Filter out already existing ones
-        List<String> existingIds = repository.findByNotificationIdIn(notificationIds)
+        if (notificationIds.isEmpty()) {
+            return;
+        }
+        // One batched insert-if-absent instead of a merge (SELECT + INSERT) per entity
+        Timestamp sentAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, new ArrayList<>(notificationIds), writeBatchSize, (ps, id) -> {
+            ps.setString(1, id);
+            ps.setTimestamp(2, sentAt);
+        });
+        forEachChunk(new ArrayList<>(notificationIds), pendingRepository::deleteByNotificationIds);
+        System.out.println("[Storage] Marked " + notificationIds.size() + " notifications as sent");
+    }
+
+    @Override
+    public Set<String> getAllSentIds() {
+        // Read only the key column, straight into the compact set
+        List<String> ids = repository.findAllIds();
+        return new CompactIdSet(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<String> filterUnsent(Collection<String> notificationIds) {
+        Set<String> unsent = new LinkedHashSet<>(notificationIds);
+        // Chunked IN queries over the primary key keep each statement bounded
+        forEachChunk(new ArrayList<>(unsent), chunk -> repository.findExistingIds(chunk).forEach(unsent::remove));
+        return unsent;
+    }
+
+    @Override
+    @Transactional
+    public void enqueuePending(List<NotificationView> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        Set<String> alreadyPending = new LinkedHashSet<>();
+        forEachChunk(notifications.stream().map(n -> n.id).collect(Collectors.toList()),
+                chunk -> alreadyPending.addAll(pendingRepository.findPendingIds(chunk)));
+        List<PendingNotification> records = notifications.stream()
+                .filter(n -> alreadyPending.add(n.id))
+                .map(n -> new PendingNotification(n.id, NotificationPayloadCodec.encode(n)))
+                .collect(Collectors.toList());
+        pendingRepository.saveAll(records);
+    }
+
+    @Override
+    public List<NotificationView> getPending() {
+        return pendingRepository.findAllByParkedAtIsNullOrderByIdAsc()
                 .stream()
-                .map(SentNotification::getNotificationId)
+                .map(p -> NotificationPayloadCodec.decode(p.getPayload()))
                 .collect(Collectors.toList());
+    }
 
-        Set<String> newIds = new HashSet<>(notificationIds);
-        newIds.removeAll(existingIds);
+    @Override
+    @Transactional
+    public int recordFailedAttempt(Collection<String> notificationIds) {
+        int[] max = {0};
+        forEachChunk(new ArrayList<>(notificationIds), chunk -> {
+            pendingRepository.incrementAttempts(chunk);
+            Integer attempts = pendingRepository.findMaxAttempts(chunk);
+            if (attempts != null) max[0] = Math.max(max[0], attempts);
+        });
+        return max[0];
+    }
 
-        if (!newIds.isEmpty()) {
-            List<SentNotification> records = newIds.stream()
-                    .map(id -> new SentNotification(id))
-                    .collect(Collectors.toList());
+    @Override
+    @Transactional
+    public void park(Collection<String> notificationIds) {
+        LocalDateTime now = LocalDateTime.now();
+        forEachChunk(new ArrayList<>(notificationIds), chunk -> pendingRepository.park(chunk, now));
+    }
 
-            repository.saveAll(records);
-            System.out.println("[Storage] Marked " + newIds.size() + " notifications as sent");
+    @Override
+    public int deleteParkedBefore(LocalDateTime cutoff) {
+        return pendingRepository.deleteParkedBefore(cutoff);
+    }
+
+    private void forEachChunk(List<String> ids, Consumer<List<String>> action) {
+        for (int i = 0; i < ids.size(); i += queryChunkSize) {
+            action.accept(ids.subList(i, Math.min(i + queryChunkSize, ids.size())));
         }
     }
 
     @Override
-    public Set<String> getAllSentIds() {
-        return repository.findAll()
-                .stream()
-                .map(SentNotification::getNotificationId)
-                .collect(Collectors.toSet());
+    @Transactional
+    public Set<String> deleteSentBefore(LocalDateTime cutoff, int batchSize) {
+        // Select then delete by key in the same short transaction, so callers learn which IDs expired
+        List<String> expired = repository.findIdsSentBefore(cutoff, Math.max(1, batchSize));
+        forEachChunk(expired, repository::deleteByNotificationIds);
+        return new LinkedHashSet<>(expired);
+    }
+
+    /**
+     * Stamp rows written before sent_at existed, one short transaction per batch. Run once at startup.
+     * @return the number of rows stamped
+     */
+    public int backfillSentAt(int batchSize) {
+        int limit = Math.max(1, batchSize);
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int stamped;
+        do {
+            stamped = repository.backfillSentAt(now, limit);
+            total += stamped;
+        } while (stamped == limit);
+        if (total > 0) {
+            System.out.println("[Storage] Stamped " + total + " legacy notifications with sent_at");
+        }
+        return total;
+    }
+
+    @Override
+    public Long findCard(String issueId, String chatId, LocalDateTime sentSince) {
+        return cardRepository.findByIssueIdAndChatId(issueId, chatId)
+                .filter(card -> !card.getSentAt().isBefore(sentSince))
+                .map(IssueCard::getMessageId)
+                .orElse(null);
+    }
+
+    @Override
+    @Transactional
+    public void saveCard(String issueId, String chatId, long messageId) {
+        IssueCard card = cardRepository.findByIssueIdAndChatId(issueId, chatId)
+                .orElseGet(() -> new IssueCard(issueId, chatId));
+        card.replace(messageId);
+        cardRepository.save(card);
+    }
+
+    @Override
+    public int deleteCardsBefore(LocalDateTime cutoff) {
+        return cardRepository.deleteSentBefore(cutoff);
+    }
+
+    @Override
+    public String getLastSeenTimestamp() {
+        return cursorRepository.findById(NOTIFICATIONS_CURSOR)
+                .map(PollCursor::getValue)
+                .orElse(null);
+    }
+
+    @Override
+    @Transactional
+    public void saveLastSeenTimestamp(String timestamp) {
+        PollCursor cursor = cursorRepository.findById(NOTIFICATIONS_CURSOR)
+                .orElseGet(() -> new PollCursor(NOTIFICATIONS_CURSOR, null));
+        cursor.setValue(timestamp);
+        cursorRepository.save(cursor);
     }
 
 }
@@ -0,0 +1,540 @@
+package org.example.infrastructure.storage;
+
+import org.example.domain.port.MetricsSource;
+import org.example.domain.port.NotificationStoragePort;
+import org.example.domain.view.NotificationView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedup state in an append-only, memory-mapped log file, for single-node setups that do not want JPA.
+ * Each record is [type:1][timestamp:8][length:2][utf-8 value]; a zero type byte marks the end of the log.
+ * A value longer than the 16-bit length is split, every part but the last written as a continuation record.
+ * Pending outbox entries are stored as "id\nJSON" and cleared by the sent record of the same ID; their
+ * failed attempts as "id\nattempts\nparked", the latest record winning; the record that parks an entry
+ * is timestamped when it was parked.
+ * Issue cards are stored as "issueId\nchatId\nmessageId", the latest record per issue and chat winning.
+ * The index is rebuilt from the log at startup. Expired and superseded records are dropped by a
+ * background compaction that rewrites the live state into a fresh file.
+ */
+public class FileNotificationStorage implements NotificationStoragePort, MetricsSource, AutoCloseable {
+
+    private static final byte RECORD_SENT = 1;
+    private static final byte RECORD_CURSOR = 2;
+    private static final byte RECORD_PENDING = 3;
+    private static final byte RECORD_CARD = 4;
+    private static final byte RECORD_ATTEMPTS = 5;
+    private static final byte RECORD_CONTINUED = 6;
+    private static final int RECORD_HEADER = 1 + 8 + 2;
+    private static final int MAX_PART = 0xFFFF;
+
+    private final Path path;
+    private final long initialSize;
+    private final int compactionThreshold;
+    private final boolean forceOnWrite;
+
+    // notification ID -> sent at (epoch millis)
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    // pending notification ID -> payload and delivery attempts, in enqueue order
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    // "issueId\nchatId" -> {message_id, sent at (epoch millis)}
+    private final Map<String, long[]> cards = new LinkedHashMap<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "file-storage-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private volatile String lastSeenTimestamp;
+    private long deadRecords = 0;
+    private boolean compactionQueued = false;
+    private volatile long compactions = 0;
+    private volatile long lastCompactionMs = 0;
+
+    public FileNotificationStorage(Path path, long initialSize, int compactionThreshold, boolean forceOnWrite)
+            throws IOException {
+        this.path = path;
+        this.initialSize = Math.max(4096, initialSize);
+        this.compactionThreshold = Math.max(1, compactionThreshold);
+        this.forceOnWrite = forceOnWrite;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    /**
+     * Map the log and replay it into the index
+     */
+    private void open() throws IOException {
+        long start = System.currentTimeMillis();
+        map();
+        int cursorRecords = 0;
+        ByteArrayOutputStream continued = null;
+        int continuedFrom = -1;
+        while (buffer.remaining() >= RECORD_HEADER) {
+            int recordStart = buffer.position();
+            byte type = buffer.get();
+            long timestamp = buffer.getLong();
+            int length = Short.toUnsignedInt(buffer.getShort());
+            if (type < RECORD_SENT || type > RECORD_CONTINUED || buffer.remaining() < length) {
+                // End of log, or a record torn by a crash mid-write: append from here
+                buffer.position(recordStart);
+                break;
+            }
+            byte[] value = new byte[length];
+            buffer.get(value);
+            if (type == RECORD_CONTINUED) {
+                if (continued == null) {
+                    continued = new ByteArrayOutputStream();
+                    continuedFrom = recordStart;
+                }
+                continued.write(value, 0, length);
+                continue;
+            }
+            if (continued != null) {
+                continued.write(value, 0, length);
+                value = continued.toByteArray();
+                continued = null;
+                continuedFrom = -1;
+            }
+            String text = new String(value, StandardCharsets.UTF_8);
+            if (type == RECORD_SENT) {
+                if (index.put(text, timestamp) != null) deadRecords++;
+                if (pending.remove(text) != null) deadRecords++;
+            } else if (type == RECORD_PENDING) {
+                int newline = text.indexOf('\n');
+                pending.put(text.substring(0, newline), new Pending(text.substring(newline + 1)));
+            } else if (type == RECORD_ATTEMPTS) {
+                String[] parts = text.split("\n", 3);
+                Pending entry = pending.get(parts[0]);
+                if (entry != null) {
+                    if (entry.attempts > 0 || entry.parked) deadRecords++;
+                    entry.attempts = Integer.parseInt(parts[1]);
+                    if ("1".equals(parts[2]) && !entry.parked) entry.parkedAt = timestamp;
+                    entry.parked = "1".equals(parts[2]);
+                } else {
+                    deadRecords++;
+                }
+            } else if (type == RECORD_CARD) {
+                int newline = text.lastIndexOf('\n');
+                long messageId = Long.parseLong(text.substring(newline + 1));
+                if (cards.put(text.substring(0, newline), new long[] {messageId, timestamp}) != null) deadRecords++;
+            } else {
+                lastSeenTimestamp = text;
+                cursorRecords++;
+            }
+        }
+        if (continuedFrom >= 0) {
+            // The parts of a value whose last record never made it: overwrite them
+            buffer.position(continuedFrom);
+        }
+        deadRecords += Math.max(0, cursorRecords - 1);
+        clearTail();
+        System.out.println("[Storage] Loaded " + index.size() + " sent IDs from " + path + " in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(initialSize, channel.size()));
+    }
+
+    /**
+     * Zero the header of the next record so a torn tail is never replayed after new writes
+     */
+    private void clearTail() {
+        int position = buffer.position();
+        for (int i = position; i < Math.min(buffer.capacity(), position + RECORD_HEADER); i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    private void append(byte type, long timestamp, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int size = parts(bytes.length) * RECORD_HEADER + bytes.length;
+        if (buffer.remaining() < size + 1) {
+            grow(size + 1);
+        }
+        for (int offset = 0; ; offset += MAX_PART) {
+            int length = Math.min(MAX_PART, bytes.length - offset);
+            boolean last = offset + length == bytes.length;
+            int recordStart = buffer.position();
+            // Write the body first and the type byte last, so a reader never sees half a record as valid
+            buffer.position(recordStart + 1);
+            buffer.putLong(timestamp);
+            buffer.putShort((short) length);
+            buffer.put(bytes, offset, length);
+            clearTail();
+            buffer.put(recordStart, last ? type : RECORD_CONTINUED);
+            if (last) break;
+        }
+    }
+
+    private static int parts(int length) {
+        return Math.max(1, (length + MAX_PART - 1) / MAX_PART);
+    }
+
+    private void grow(int needed) throws IOException {
+        int position = buffer.position();
+        long capacity = buffer.capacity();
+        long newCapacity = Math.max(capacity * 2, capacity + needed);
+        if (newCapacity > Integer.MAX_VALUE) {
+            throw new IOException("Storage log is full: " + path);
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newCapacity);
+        buffer.position(position);
+    }
+
+    @Override
+    public synchronized void markAsSent(Set<String> notificationIds) {
+        long now = System.currentTimeMillis();
+        try {
+            for (String id : notificationIds) {
+                boolean wasPending = pending.remove(id) != null;
+                if (index.putIfAbsent(id, now) == null) {
+                    append(RECORD_SENT, now, id);
+                }
+                if (wasPending) deadRecords++;
+            }
+            if (forceOnWrite) buffer.force();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to append to storage log " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Set<String> getAllSentIds() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    @Override
+    public Set<String> filterUnsent(Collection<String> notificationIds) {
+        Set<String> unsent = new LinkedHashSet<>();
+        for (String id : notificationIds) {
+            if (!index.containsKey(id)) unsent.add(id);
+        }
+        return unsent;
+    }
+
+    @Override
+    public synchronized Set<String> deleteSentBefore(LocalDateTime cutoff, int batchSize) {
+        long cutoffMs = cutoff.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Set<String> removed = new LinkedHashSet<>();
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (it.hasNext() && removed.size() < batchSize) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getValue() < cutoffMs) {
+                it.remove();
+                removed.add(entry.getKey());
+            }
+        }
+        deadRecords += removed.size();
+        // Expired IDs only leave the file on compaction
+        if (deadRecords >= compactionThreshold) {
+            scheduleCompaction();
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized void enqueuePending(List<NotificationView> notifications) {
+        try {
+            for (NotificationView n : notifications) {
+                if (pending.containsKey(n.id) || index.containsKey(n.id)) continue;
+                String payload = NotificationPayloadCodec.encode(n);
+                append(RECORD_PENDING, System.currentTimeMillis(), n.id + "\n" + payload);
+                pending.put(n.id, new Pending(payload));
+            }
+            if (forceOnWrite) buffer.force();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to append to storage log " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized List<NotificationView> getPending() {
+        List<NotificationView> views = new ArrayList<>(pending.size());
+        for (Pending entry : pending.values()) {
+            if (!entry.parked) views.add(NotificationPayloadCodec.decode(entry.payload));
+        }
+        return views;
+    }
+
+    @Override
+    public synchronized int recordFailedAttempt(Collection<String> notificationIds) {
+        int max = 0;
+        try {
+            for (String id : notificationIds) {
+                Pending entry = pending.get(id);
+                if (entry == null) continue;
+                entry.attempts++;
+                appendAttempts(id, entry);
+                max = Math.max(max, entry.attempts);
+            }
+            if (forceOnWrite) buffer.force();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to append to storage log " + path + ": " + e.getMessage(), e);
+        }
+        return max;
+    }
+
+    @Override
+    public synchronized void park(Collection<String> notificationIds) {
+        try {
+            for (String id : notificationIds) {
+                Pending entry = pending.get(id);
+                if (entry == null || entry.parked) continue;
+                entry.parked = true;
+                entry.parkedAt = System.currentTimeMillis();
+                appendAttempts(id, entry);
+            }
+            if (forceOnWrite) buffer.force();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to append to storage log " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized int deleteParkedBefore(LocalDateTime cutoff) {
+        long cutoffMs = cutoff.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        int removed = 0;
+        Iterator<Pending> it = pending.values().iterator();
+        while (it.hasNext()) {
+            Pending entry = it.next();
+            if (entry.parked && entry.parkedAt < cutoffMs) {
+                it.remove();
+                removed++;
+            }
+        }
+        // The pending record and its latest attempts record; both leave the file on compaction
+        deadRecords += 2L * removed;
+        if (deadRecords >= compactionThreshold) {
+            scheduleCompaction();
+        }
+        return removed;
+    }
+
+    private void appendAttempts(String id, Pending entry) throws IOException {
+        append(RECORD_ATTEMPTS, entry.parked ? entry.parkedAt : System.currentTimeMillis(), attemptsValue(id, entry));
+        deadRecords++; // the previous attempts record, or the counter the pending record started with
+    }
+
+    private static String attemptsValue(String id, Pending entry) {
+        return id + "\n" + entry.attempts + "\n" + (entry.parked ? "1" : "0");
+    }
+
+    @Override
+    public synchronized Long findCard(String issueId, String chatId, LocalDateTime sentSince) {
+        long[] card = cards.get(issueId + "\n" + chatId);
+        if (card == null || card[1] < sentSince.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()) {
+            return null;
+        }
+        return card[0];
+    }
+
+    @Override
+    public synchronized void saveCard(String issueId, String chatId, long messageId) {
+        long now = System.currentTimeMillis();
+        String key = issueId + "\n" + chatId;
+        try {
+            append(RECORD_CARD, now, key + "\n" + messageId);
+            if (forceOnWrite) buffer.force();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to append to storage log " + path + ": " + e.getMessage(), e);
+        }
+        if (cards.put(key, new long[] {messageId, now}) != null) {
+            deadRecords++;
+        }
+    }
+
+    @Override
+    public synchronized int deleteCardsBefore(LocalDateTime cutoff) {
+        long cutoffMs = cutoff.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        int removed = 0;
+        Iterator<long[]> it = cards.values().iterator();
+        while (it.hasNext()) {
+            if (it.next()[1] < cutoffMs) {
+                it.remove();
+                removed++;
+            }
+        }
+        deadRecords += removed;
+        if (deadRecords >= compactionThreshold) {
+            scheduleCompaction();
+        }
+        return removed;
+    }
+
+    @Override
+    public String getLastSeenTimestamp() {
+        return lastSeenTimestamp;
+    }
+
+    @Override
+    public synchronized void saveLastSeenTimestamp(String timestamp) {
+        try {
+            append(RECORD_CURSOR, System.currentTimeMillis(), timestamp);
+            if (forceOnWrite) buffer.force();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to append to storage log " + path + ": " + e.getMessage(), e);
+        }
+        if (lastSeenTimestamp != null) {
+            deadRecords++;
+        }
+        lastSeenTimestamp = timestamp;
+        if (deadRecords >= compactionThreshold) {
+            scheduleCompaction();
+        }
+    }
+
+    private void scheduleCompaction() {
+        if (compactionQueued) return;
+        compactionQueued = true;
+        compactor.execute(() -> {
+            try {
+                compact();
+            } catch (Exception e) {
+                System.err.println("[Storage] Log compaction failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Rewrite the live IDs, pending entries, cards and the cursor into a new log and swap it in.
+     * The in-memory state already matches the new log, so it is mapped without a replay and
+     * concurrent {@link #filterUnsent} calls never see a cleared index.
+     */
+    public synchronized void compact() throws IOException {
+        compactionQueued = false;
+        long start = System.currentTimeMillis();
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        long written;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer chunk = ByteBuffer.allocate(128 * 1024); // fits the largest record part
+            for (Map.Entry<String, Long> entry : index.entrySet()) {
+                writeRecord(out, chunk, RECORD_SENT, entry.getValue(), entry.getKey());
+            }
+            for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+                Pending p = entry.getValue();
+                writeRecord(out, chunk, RECORD_PENDING, start, entry.getKey() + "\n" + p.payload);
+                if (p.attempts > 0 || p.parked) {
+                    writeRecord(out, chunk, RECORD_ATTEMPTS, p.parked ? p.parkedAt : start, attemptsValue(entry.getKey(), p));
+                }
+            }
+            for (Map.Entry<String, long[]> entry : cards.entrySet()) {
+                writeRecord(out, chunk, RECORD_CARD, entry.getValue()[1], entry.getKey() + "\n" + entry.getValue()[0]);
+            }
+            if (lastSeenTimestamp != null) {
+                writeRecord(out, chunk, RECORD_CURSOR, System.currentTimeMillis(), lastSeenTimestamp);
+            }
+            chunk.flip();
+            while (chunk.hasRemaining()) out.write(chunk);
+            out.force(true);
+            written = out.position();
+        }
+        buffer.force();
+        channel.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map();
+        buffer.position((int) written);
+        clearTail();
+        deadRecords = 0;
+        compactions++;
+        lastCompactionMs = System.currentTimeMillis() - start;
+        System.out.println("[Storage] Compacted " + path + " to " + index.size() + " IDs in " + lastCompactionMs + "ms");
+    }
+
+    private static void writeRecord(FileChannel out, ByteBuffer chunk, byte type, long timestamp, String value)
+            throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (int offset = 0; ; offset += MAX_PART) {
+            int length = Math.min(MAX_PART, bytes.length - offset);
+            boolean last = offset + length == bytes.length;
+            if (chunk.remaining() < RECORD_HEADER + length) {
+                chunk.flip();
+                while (chunk.hasRemaining()) out.write(chunk);
+                chunk.clear();
+            }
+            chunk.put(last ? type : RECORD_CONTINUED).putLong(timestamp).putShort((short) length).put(bytes, offset, length);
+            if (last) break;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Let a running compaction finish before the channel goes away
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (channel.isOpen()) {
+                buffer.force();
+                channel.close();
+            }
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "storage.file";
+    }
+
+    @Override
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("size", index.size());
+        long parked = pending.values().stream().filter(p -> p.parked).count();
+        m.put("pending", pending.size() - parked);
+        m.put("parked", parked);
+        m.put("cards", cards.size());
+        m.put("logBytes", buffer.position());
+        m.put("deadRecords", deadRecords);
+        m.put("compactions", compactions);
+        m.put("lastCompactionMs", lastCompactionMs);
+        return m;
+    }
+
+    private static final class Pending {
+        final String payload;
+        int attempts;
+        boolean parked;
+        long parkedAt; // epoch millis, 0 until parked
+
+        Pending(String payload) {
+            this.payload = payload;
+        }
+    }
+}
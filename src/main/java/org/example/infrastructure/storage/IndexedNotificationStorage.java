@@ -0,0 +1,199 @@
+package org.example.infrastructure.storage;
+
+import org.example.domain.port.MetricsSource;
+import org.example.domain.port.NotificationStoragePort;
+import org.example.domain.view.NotificationView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the sent notification IDs resident in memory in front of another storage.
+ * The index is loaded once at startup and updated on every markAsSent and purge, so deduplicating
+ * a batch no longer reads the whole history from the database on each poll.
+ * IDs are held in a {@link CompactIdSet} behind a read/write lock.
+ */
+public class IndexedNotificationStorage implements NotificationStoragePort, MetricsSource {
+
+    private final NotificationStoragePort delegate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private CompactIdSet index = new CompactIdSet();
+    // IDs marked as sent or purged while a reload reads the delegate
+    private Set<String> markedDuringLoad;
+    private Set<String> purgedDuringLoad;
+
+    public IndexedNotificationStorage(NotificationStoragePort delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Load all sent IDs from the underlying storage into a new set and swap it in, so lookups never see
+     * a half-loaded index. IDs marked as sent or purged while the delegate is read are carried over.
+     */
+    public void load() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            markedDuringLoad = new HashSet<>();
+            purgedDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        CompactIdSet loaded;
+        try {
+            loaded = new CompactIdSet(delegate.getAllSentIds());
+        } catch (RuntimeException e) {
+            // Keep serving from the current index
+            lock.writeLock().lock();
+            try {
+                markedDuringLoad = null;
+                purgedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            loaded.removeAll(purgedDuringLoad);
+            loaded.addAll(markedDuringLoad);
+            markedDuringLoad = null;
+            purgedDuringLoad = null;
+            index = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("[Storage] Loaded dedup index with " + loaded.size() + " IDs (~"
+                + loaded.estimatedBytes() / 1024 + " KB) in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    @Override
+    public void markAsSent(Set<String> notificationIds) {
+        delegate.markAsSent(notificationIds);
+        lock.writeLock().lock();
+        try {
+            index.addAll(notificationIds);
+            if (markedDuringLoad != null) {
+                markedDuringLoad.addAll(notificationIds);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> getAllSentIds() {
+        lock.readLock().lock();
+        try {
+            return new CompactIdSet(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> filterUnsent(Collection<String> notificationIds) {
+        Set<String> unsent = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            for (String id : notificationIds) {
+                if (!index.contains(id)) unsent.add(id);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return unsent;
+    }
+
+    @Override
+    public Set<String> deleteSentBefore(LocalDateTime cutoff, int batchSize) {
+        Set<String> removed = delegate.deleteSentBefore(cutoff, batchSize);
+        // Expired IDs leave memory as well, so they are not held until the next restart
+        lock.writeLock().lock();
+        try {
+            index.removeAll(removed);
+            if (purgedDuringLoad != null) {
+                purgedDuringLoad.addAll(removed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return removed;
+    }
+
+    @Override
+    public String getLastSeenTimestamp() {
+        return delegate.getLastSeenTimestamp();
+    }
+
+    @Override
+    public void saveLastSeenTimestamp(String timestamp) {
+        delegate.saveLastSeenTimestamp(timestamp);
+    }
+
+    @Override
+    public void enqueuePending(List<NotificationView> notifications) {
+        delegate.enqueuePending(notifications);
+    }
+
+    @Override
+    public List<NotificationView> getPending() {
+        return delegate.getPending();
+    }
+
+    @Override
+    public int recordFailedAttempt(Collection<String> notificationIds) {
+        return delegate.recordFailedAttempt(notificationIds);
+    }
+
+    @Override
+    public void park(Collection<String> notificationIds) {
+        delegate.park(notificationIds);
+    }
+
+    @Override
+    public int deleteParkedBefore(LocalDateTime cutoff) {
+        return delegate.deleteParkedBefore(cutoff);
+    }
+
+    @Override
+    public Long findCard(String issueId, String chatId, LocalDateTime sentSince) {
+        return delegate.findCard(issueId, chatId, sentSince);
+    }
+
+    @Override
+    public void saveCard(String issueId, String chatId, long messageId) {
+        delegate.saveCard(issueId, chatId, messageId);
+    }
+
+    @Override
+    public int deleteCardsBefore(LocalDateTime cutoff) {
+        return delegate.deleteCardsBefore(cutoff);
+    }
+
+    @Override
+    public String metricsName() {
+        return "storage.dedup-index";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            m.put("size", index.size());
+            m.put("estimatedBytes", index.estimatedBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return m;
+    }
+}
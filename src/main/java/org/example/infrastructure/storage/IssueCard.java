@@ -0,0 +1,53 @@
+package org.example.infrastructure.storage;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "issue_cards",
+        indexes = {
+                @Index(name = "idx_issue_cards_issue_chat", columnList = "issue_id, chat_id", unique = true),
+                @Index(name = "idx_issue_cards_sent_at", columnList = "sent_at")
+        })
+public class IssueCard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "issue_id", nullable = false)
+    private String issueId;
+
+    @Column(name = "chat_id", nullable = false)
+    private String chatId;
+
+    @Column(name = "message_id", nullable = false)
+    private long messageId; // Telegram message_id of the card in that chat
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+    // Default constructor for JPA
+    public IssueCard() {}
+
+    public IssueCard(String issueId, String chatId) {
+        this.issueId = issueId;
+        this.chatId = chatId;
+    }
+
+    /**
+     * Point at a newly sent card
+     */
+    public void replace(long messageId) {
+        this.messageId = messageId;
+        this.sentAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getIssueId() { return issueId; }
+    public String getChatId() { return chatId; }
+    public long getMessageId() { return messageId; }
+    public LocalDateTime getSentAt() { return sentAt; }
+}
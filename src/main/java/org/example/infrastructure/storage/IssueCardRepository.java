@@ -0,0 +1,25 @@
+package org.example.infrastructure.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IssueCardRepository extends JpaRepository<IssueCard, Long> {
+
+    Optional<IssueCard> findByIssueIdAndChatId(String issueId, String chatId);
+
+    /**
+     * Drop cards too old to be edited in place
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IssueCard c where c.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,44 @@
+package org.example.infrastructure.storage;
+
+import org.example.domain.port.NotificationStoragePort;
+import org.example.infrastructure.scheduler.SchedulerProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * JPA entities and repositories, only registered for the database storage backend
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "database", matchIfMissing = true)
+@EntityScan(basePackages = "org.example.infrastructure.storage")
+@EnableJpaRepositories(basePackages = "org.example.infrastructure.storage")
+public class JpaStorageConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "scheduler.leader-election", name = "enabled", havingValue = "true")
+    public DatabaseLeaderElection databaseLeaderElection(SchedulerLeaseRepository repository,
+                                                         SchedulerProperties schedulerProperties,
+                                                         ObjectProvider<NotificationStoragePort> storage) {
+        SchedulerProperties.LeaderElection election = schedulerProperties.getLeaderElection();
+        String instanceId = election.getInstanceId();
+        if (instanceId == null || instanceId.isBlank()) {
+            instanceId = System.getenv().getOrDefault("HOSTNAME", "instance") + ":" + ProcessHandle.current().pid()
+                    + ":" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        // The resident dedup index misses what the previous leader sent, so reload it on every takeover
+        Runnable onAcquired = () -> {
+            if (storage.getIfAvailable() instanceof IndexedNotificationStorage indexed) {
+                indexed.load();
+            }
+        };
+        return new DatabaseLeaderElection(repository, instanceId, Duration.parse(election.getLeaseTimeout()).toMillis(),
+                onAcquired);
+    }
+}
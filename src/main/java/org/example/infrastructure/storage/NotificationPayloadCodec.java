@@ -0,0 +1,33 @@
+package org.example.infrastructure.storage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.domain.view.NotificationView;
+
+/**
+ * JSON form of a pending notification in the outbox
+ */
+final class NotificationPayloadCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private NotificationPayloadCodec() {}
+
+    static String encode(NotificationView view) {
+        try {
+            return MAPPER.writeValueAsString(view);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode notification " + view.id + ": " + e.getMessage(), e);
+        }
+    }
+
+    static NotificationView decode(String payload) {
+        try {
+            return MAPPER.readValue(payload, NotificationView.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to decode pending notification: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.infrastructure.storage;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "pending_notifications",
+        indexes = @Index(name = "idx_pending_notifications_notification_id", columnList = "notification_id", unique = true))
+public class PendingNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id; // insertion order
+
+    @Column(name = "notification_id", nullable = false)
+    private String notificationId;
+
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "enqueued_at")
+    private LocalDateTime enqueuedAt;
+
+    @Column(name = "attempts", nullable = false, columnDefinition = "integer default 0 not null")
+    private int attempts; // failed sends so far
+
+    @Column(name = "parked_at")
+    private LocalDateTime parkedAt; // set once retrying stopped
+
+    // Default constructor for JPA
+    public PendingNotification() {}
+
+    public PendingNotification(String notificationId, String payload) {
+        this.notificationId = notificationId;
+        this.payload = payload;
+        this.enqueuedAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public String getNotificationId() { return notificationId; }
+    public String getPayload() { return payload; }
+    public LocalDateTime getEnqueuedAt() { return enqueuedAt; }
+    public int getAttempts() { return attempts; }
+    public LocalDateTime getParkedAt() { return parkedAt; }
+}
@@ -0,0 +1,56 @@
+package org.example.infrastructure.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PendingNotificationRepository extends JpaRepository<PendingNotification, Long> {
+
+    /**
+     * Pending notifications that are not parked, in the order they were enqueued
+     */
+    List<PendingNotification> findAllByParkedAtIsNullOrderByIdAsc();
+
+    /**
+     * Find which of the given IDs are already pending
+     */
+    @Query("select p.notificationId from PendingNotification p where p.notificationId in :ids")
+    List<String> findPendingIds(@Param("ids") Collection<String> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update PendingNotification p set p.attempts = p.attempts + 1 where p.notificationId in :ids")
+    int incrementAttempts(@Param("ids") Collection<String> ids);
+
+    @Query("select max(p.attempts) from PendingNotification p where p.notificationId in :ids")
+    Integer findMaxAttempts(@Param("ids") Collection<String> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update PendingNotification p set p.parkedAt = :now where p.notificationId in :ids and p.parkedAt is null")
+    int park(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Drop notifications parked before the cutoff, they are never retried
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from PendingNotification p where p.parkedAt < :cutoff")
+    int deleteParkedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Remove delivered notifications from the outbox
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from PendingNotification p where p.notificationId in :ids")
+    int deleteByNotificationIds(@Param("ids") Collection<String> ids);
+}
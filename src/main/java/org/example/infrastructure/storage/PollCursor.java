@@ -0,0 +1,28 @@
+package org.example.infrastructure.storage;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "poll_cursors")
+public class PollCursor {
+
+    @Id
+    @Column(name = "cursor_name")
+    private String name;
+
+    @Column(name = "cursor_value")
+    private String value;
+
+    // Default constructor for JPA
+    public PollCursor() {}
+
+    public PollCursor(String name, String value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    // Getters and setters
+    public String getName() { return name; }
+    public String getValue() { return value; }
+    public void setValue(String value) { this.value = value; }
+}
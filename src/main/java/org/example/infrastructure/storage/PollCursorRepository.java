@@ -0,0 +1,8 @@
+package org.example.infrastructure.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PollCursorRepository extends JpaRepository<PollCursor, String> {
+}
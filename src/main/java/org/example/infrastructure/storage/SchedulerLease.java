@@ -0,0 +1,30 @@
+package org.example.infrastructure.storage;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+
+    @Id
+    @Column(name = "lease_name")
+    private String name;
+
+    @Column(name = "owner_id")
+    private String ownerId;
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt; // epoch millis
+
+    @Column(name = "polling_enabled", nullable = false)
+    private boolean pollingEnabled;
+
+    // Default constructor for JPA
+    public SchedulerLease() {}
+
+    // Getters and setters
+    public String getName() { return name; }
+    public String getOwnerId() { return ownerId; }
+    public long getExpiresAt() { return expiresAt; }
+    public boolean isPollingEnabled() { return pollingEnabled; }
+}
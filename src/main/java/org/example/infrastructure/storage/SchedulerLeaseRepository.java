@@ -0,0 +1,51 @@
+package org.example.infrastructure.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * The database clock in epoch millis, the one time source all replicas agree on
+     */
+    @Query(value = "SELECT CAST(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP) * 1000 AS BIGINT)", nativeQuery = true)
+    long currentTimeMillis();
+
+    /**
+     * Renew the lease if this owner holds it, or take it over once it has expired
+     */
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLease l set l.ownerId = :owner, l.expiresAt = :expiresAt "
+            + "where l.name = :name and (l.ownerId = :owner or l.expiresAt < :now)")
+    int acquire(@Param("name") String name, @Param("owner") String owner,
+                @Param("now") long now, @Param("expiresAt") long expiresAt);
+
+    /**
+     * Create the lease row; fails on the primary key if another instance created it first
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_leases (lease_name, owner_id, expires_at, polling_enabled) "
+            + "VALUES (:name, :owner, :expiresAt, :pollingEnabled)", nativeQuery = true)
+    int insert(@Param("name") String name, @Param("owner") String owner,
+               @Param("expiresAt") long expiresAt, @Param("pollingEnabled") boolean pollingEnabled);
+
+    /**
+     * Give the lease up so a standby takes over on its next heartbeat
+     */
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLease l set l.expiresAt = 0 where l.name = :name and l.ownerId = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLease l set l.pollingEnabled = :enabled where l.name = :name")
+    int updatePollingEnabled(@Param("name") String name, @Param("enabled") boolean enabled);
+}
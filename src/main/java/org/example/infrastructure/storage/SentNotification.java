@@ -4,21 +4,27 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sent_notifications")
+@Table(name = "sent_notifications",
+        indexes = @Index(name = "idx_sent_notifications_sent_at", columnList = "sent_at"))
 public class SentNotification {
 
     @Id
     @Column(name = "notification_id")
     private String notificationId;
 
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
 
     // Default constructor for JPA
     public SentNotification() {}
 
     public SentNotification(String notificationId) {
         this.notificationId = notificationId;
+        this.sentAt = LocalDateTime.now();
     }
 
     // Getters and setters
     public String getNotificationId() { return notificationId; }
+
+    public LocalDateTime getSentAt() { return sentAt; }
 }
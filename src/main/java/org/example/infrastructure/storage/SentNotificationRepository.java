@@ -3,11 +3,13 @@ package org.example.infrastructure.storage;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 
 @Repository
 public interface SentNotificationRepository extends JpaRepository<SentNotification, String> {
@@ -18,8 +20,40 @@ public interface SentNotificationRepository extends JpaRepository<SentNotificati
     long count();
 
     /**
-     * Find notifications by IDs
+     * Find which of the given IDs are already stored, reading only the primary key
      */
-    List<SentNotification> findByNotificationIdIn(Set<String> notificationIds);
+    @Query("select s.notificationId from SentNotification s where s.notificationId in :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
+
+    /**
+     * All stored IDs, without materializing entities
+     */
+    @Query("select s.notificationId from SentNotification s")
+    List<String> findAllIds();
+
+    /**
+     * Stamp up to limit of the rows written before sent_at existed, so they age out from now instead of never
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE sent_notifications SET sent_at = :now WHERE notification_id IN ("
+            + "SELECT notification_id FROM sent_notifications WHERE sent_at IS NULL "
+            + "FETCH FIRST :limit ROWS ONLY)", nativeQuery = true)
+    int backfillSentAt(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Up to limit of the oldest IDs sent before the cutoff
+     */
+    @Query(value = "SELECT notification_id FROM sent_notifications WHERE sent_at < :cutoff "
+            + "ORDER BY sent_at FETCH FIRST :limit ROWS ONLY", nativeQuery = true)
+    List<String> findIdsSentBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * Delete the given IDs, joining the caller's transaction
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from SentNotification s where s.notificationId in :ids")
+    int deleteByNotificationIds(@Param("ids") Collection<String> ids);
 
 }
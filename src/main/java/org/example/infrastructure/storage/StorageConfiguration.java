@@ -1,15 +1,65 @@
 package org.example.infrastructure.storage;
 
 import org.example.domain.port.NotificationStoragePort;
+import org.example.infrastructure.scheduler.SchedulerProperties;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 @Configuration
 public class StorageConfiguration {
     
+    /**
+     * The database backend is a bean of its own, so its @Transactional methods go through the transaction proxy
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "database", matchIfMissing = true)
+    public DatabaseNotificationStorage databaseStorageBackend(SentNotificationRepository repository,
+                                                              PollCursorRepository cursorRepository,
+                                                              PendingNotificationRepository pendingRepository,
+                                                              IssueCardRepository cardRepository,
+                                                              JdbcTemplate jdbcTemplate,
+                                                              StorageProperties storageProperties) {
+        return new DatabaseNotificationStorage(repository, cursorRepository, pendingRepository, cardRepository,
+                jdbcTemplate, storageProperties.getQueryChunkSize(), storageProperties.getWriteBatchSize());
+    }
+
     @Bean
-    public NotificationStoragePort databaseNotificationStorage(SentNotificationRepository repository) {
-        return new DatabaseNotificationStorage(repository);
+    @Primary
+    @ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "database", matchIfMissing = true)
+    public NotificationStoragePort databaseNotificationStorage(DatabaseNotificationStorage database,
+                                                               StorageProperties storageProperties,
+                                                               SchedulerProperties schedulerProperties) {
+        // Rows from before sent_at existed would never expire, stamp them once instead of on every purge
+        database.backfillSentAt(storageProperties.getCleanup().getBatchSize());
+        if (!storageProperties.getIndex().isEnabled()) {
+            return database;
+        }
+        // Resident dedup index in front of the database, loaded at startup
+        if (schedulerProperties.getLeaderElection().isEnabled()) {
+            System.out.println("[Storage] Dedup index with leader election: only the lease holder sends, "
+                    + "and the index is reloaded each time this replica takes the lease over");
+        }
+        IndexedNotificationStorage indexed = new IndexedNotificationStorage(database);
+        indexed.load();
+        return indexed;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "file")
+    public NotificationStoragePort fileNotificationStorage(StorageProperties storageProperties,
+                                                           SchedulerProperties schedulerProperties) throws IOException {
+        if (schedulerProperties.getLeaderElection().isEnabled()) {
+            // The lease lives in the database and the log is local to one host, so replicas would double-send
+            throw new IllegalStateException("scheduler.leader-election.enabled requires storage.type=database");
+        }
+        StorageProperties.File file = storageProperties.getFile();
+        return new FileNotificationStorage(Path.of(file.getPath()), file.getInitialSize(),
+                file.getCompactionThreshold(), file.isForceOnWrite());
     }
 }
@@ -5,19 +5,77 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "storage")
 public class StorageProperties {
     
+    private String type = "database"; // database | file
     private Cleanup cleanup = new Cleanup();
+    private File file = new File();
+    private Index index = new Index();
+    private int queryChunkSize = 500; // max IDs per IN query
+    private int writeBatchSize = 1000; // max rows per JDBC batch when marking as sent
     
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public File getFile() { return file; }
+    public void setFile(File file) { this.file = file; }
+
     public Cleanup getCleanup() { return cleanup; }
     public void setCleanup(Cleanup cleanup) { this.cleanup = cleanup; }
+
+    public int getQueryChunkSize() { return queryChunkSize; }
+    public void setQueryChunkSize(int queryChunkSize) { this.queryChunkSize = queryChunkSize; }
+
+    public int getWriteBatchSize() { return writeBatchSize; }
+    public void setWriteBatchSize(int writeBatchSize) { this.writeBatchSize = writeBatchSize; }
+
+    public Index getIndex() { return index; }
+    public void setIndex(Index index) { this.index = index; }
     
     public static class Cleanup {
         private boolean enabled = true;
         private int daysToKeep = 30;
+        private String interval = "PT1H"; // delay between retention runs
+        private int batchSize = 1000; // max rows deleted per transaction
+        private String batchPause = "PT0.1S"; // pause between batches so writers get the table back
         
         public boolean isEnabled() { return enabled; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
         
         public int getDaysToKeep() { return daysToKeep; }
         public void setDaysToKeep(int daysToKeep) { this.daysToKeep = daysToKeep; }
+
+        public String getInterval() { return interval; }
+        public void setInterval(String interval) { this.interval = interval; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public String getBatchPause() { return batchPause; }
+        public void setBatchPause(String batchPause) { this.batchPause = batchPause; }
+    }
+
+    public static class Index {
+        private boolean enabled = true; // keep sent IDs resident in memory for deduplication
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    }
+
+    public static class File {
+        private String path = "data/notifications.log";
+        private long initialSize = 1024 * 1024; // bytes mapped up front, doubled as the log grows
+        private int compactionThreshold = 10000; // dead records before the log is rewritten
+        private boolean forceOnWrite = false; // fsync after each write instead of leaving it to the OS
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public long getInitialSize() { return initialSize; }
+        public void setInitialSize(long initialSize) { this.initialSize = initialSize; }
+
+        public int getCompactionThreshold() { return compactionThreshold; }
+        public void setCompactionThreshold(int compactionThreshold) { this.compactionThreshold = compactionThreshold; }
+
+        public boolean isForceOnWrite() { return forceOnWrite; }
+        public void setForceOnWrite(boolean forceOnWrite) { this.forceOnWrite = forceOnWrite; }
     }
 }
@@ -0,0 +1,161 @@
+package org.example.infrastructure.telegram;
+
+import org.example.domain.port.MessengerPort;
+import org.example.domain.port.MetricsSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Paces Telegram sends to the Bot API limits instead of sleeping a fixed time after every message:
+ * a global per-bot rate, a per-chat rate and a per-minute limit for groups (negative chat IDs or @channels).
+ * A send waits only until every bucket it needs has a token, so bursts go out as fast as allowed.
+ * {@link RetryingMessenger} can hold all sends back when Telegram answers 429 with retry_after.
+ */
+@Component
+public class RateLimitedMessenger implements MessengerPort, MetricsSource {
+
+    private final TelegramClient delegate;
+    private final TelegramProperties properties;
+    private final TelegramProperties.RateLimit limits;
+    private final Ticker ticker;
+
+    private final TokenBucket global;
+    private final Map<String, TokenBucket> perChat = new LinkedHashMap<>();
+    private final Map<String, TokenBucket> perGroup = new LinkedHashMap<>();
+
+    private long pausedUntil;
+    private long sends = 0;
+    private long throttledSends = 0;
+    private long totalWaitNanos = 0;
+    private long maxWaitNanos = 0;
+
+    @Autowired
+    public RateLimitedMessenger(TelegramClient delegate, TelegramProperties properties) {
+        this(delegate, properties, Ticker.SYSTEM);
+    }
+
+    public RateLimitedMessenger(TelegramClient delegate, TelegramProperties properties, Ticker ticker) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.limits = properties.getRateLimit();
+        this.ticker = ticker;
+        this.pausedUntil = ticker.nanoTime();
+        this.global = new TokenBucket(limits.getGlobalPerSecond(), limits.getGlobalPerSecond(), pausedUntil);
+    }
+
+    @Override
+    public void sendToPm(String text) throws IOException {
+        acquire(properties.getPmChatId());
+        delegate.sendToPm(text);
+    }
+
+    @Override
+    public void sendToChat(String chatId, String text) throws IOException {
+        acquire(chatId);
+        delegate.sendToChat(chatId, text);
+    }
+
+    @Override
+    public long sendCard(String chatId, String text) throws IOException {
+        acquire(chatId != null ? chatId : properties.getPmChatId());
+        return delegate.sendCard(chatId, text);
+    }
+
+    // Edits count against the same per-chat limits as new messages
+    @Override
+    public boolean editCard(String chatId, long messageId, String text) throws IOException {
+        acquire(chatId != null ? chatId : properties.getPmChatId());
+        return delegate.editCard(chatId, messageId, text);
+    }
+
+    /**
+     * Block until the global, chat and (for groups) group buckets all have a token, then take one from each
+     */
+    private void acquire(String chatId) throws InterruptedIOException {
+        if (!limits.isEnabled()) return;
+        long waited = 0;
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = ticker.nanoTime();
+                TokenBucket chat = chatBucket(chatId, now);
+                TokenBucket group = isGroup(chatId) ? groupBucket(chatId, now) : null;
+                waitNanos = Math.max(global.nanosUntilAvailable(now), chat.nanosUntilAvailable(now));
+                waitNanos = Math.max(waitNanos, pausedUntil - now);
+                if (group != null) waitNanos = Math.max(waitNanos, group.nanosUntilAvailable(now));
+                if (waitNanos == 0) {
+                    global.take(now);
+                    chat.take(now);
+                    if (group != null) group.take(now);
+                    record(waited);
+                    return;
+                }
+            }
+            try {
+                ticker.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the Telegram rate limit");
+            }
+            waited += waitNanos;
+        }
+    }
+
+    /**
+     * Hold back every send for the given time, e.g. the retry_after of a 429
+     */
+    public synchronized void pause(Duration duration) {
+        pausedUntil = Math.max(pausedUntil, ticker.nanoTime() + duration.toNanos());
+    }
+
+    private TokenBucket chatBucket(String chatId, long now) {
+        return perChat.computeIfAbsent(String.valueOf(chatId),
+                id -> new TokenBucket(limits.getPerChatBurst(), limits.getPerChatPerSecond(), now));
+    }
+
+    // A bucket of capacity C refilled at r per second admits at most C + 60r sends in any minute,
+    // so the refill rate leaves room for the burst within the per-minute limit
+    private TokenBucket groupBucket(String chatId, long now) {
+        return perGroup.computeIfAbsent(chatId, id -> {
+            double burst = Math.min(limits.getPerGroupBurst(), limits.getPerGroupPerMinute());
+            double perSecond = Math.max(1, limits.getPerGroupPerMinute() - burst) / 60.0;
+            return new TokenBucket(burst, perSecond, now);
+        });
+    }
+
+    private static boolean isGroup(String chatId) {
+        return chatId != null && (chatId.startsWith("-") || chatId.startsWith("@"));
+    }
+
+    private void record(long waitedNanos) {
+        sends++;
+        if (waitedNanos > 0) {
+            throttledSends++;
+            totalWaitNanos += waitedNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitedNanos);
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "telegram.rate-limit";
+    }
+
+    @Override
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", limits.isEnabled());
+        m.put("sends", sends);
+        m.put("throttledSends", throttledSends);
+        m.put("totalWaitMs", totalWaitNanos / 1_000_000);
+        m.put("maxWaitMs", maxWaitNanos / 1_000_000);
+        m.put("chats", perChat.size());
+        return m;
+    }
+}
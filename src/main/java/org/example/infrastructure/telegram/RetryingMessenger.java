@@ -0,0 +1,171 @@
+package org.example.infrastructure.telegram;
+
+import org.example.domain.port.MessageRejectedException;
+import org.example.domain.port.MessengerPort;
+import org.example.domain.port.MetricsSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retries Telegram sends that certainly did not deliver: 429 (honoring retry_after), 503 and failures
+ * to connect. A 502 or 504 from a proxy, like a timeout after the request went out, is not retried,
+ * since the message may have arrived. Backoff is exponential with jitter, and the total time spent
+ * retrying is capped.
+ * Other 4xx replies reject the message itself and surface as {@link MessageRejectedException}.
+ */
+@Component
+@Primary
+public class RetryingMessenger implements MessengerPort, MetricsSource {
+
+    private final RateLimitedMessenger delegate;
+    private final TelegramProperties.Retry retry;
+    private final Ticker ticker;
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    @Autowired
+    public RetryingMessenger(RateLimitedMessenger delegate, TelegramProperties properties) {
+        this(delegate, properties, Ticker.SYSTEM);
+    }
+
+    public RetryingMessenger(RateLimitedMessenger delegate, TelegramProperties properties, Ticker ticker) {
+        this.delegate = delegate;
+        this.retry = properties.getRetry();
+        this.ticker = ticker;
+    }
+
+    @Override
+    public void sendToPm(String text) throws IOException {
+        withRetry(() -> {
+            delegate.sendToPm(text);
+            return null;
+        });
+    }
+
+    @Override
+    public void sendToChat(String chatId, String text) throws IOException {
+        withRetry(() -> {
+            delegate.sendToChat(chatId, text);
+            return null;
+        });
+    }
+
+    @Override
+    public long sendCard(String chatId, String text) throws IOException {
+        return withRetry(() -> delegate.sendCard(chatId, text));
+    }
+
+    @Override
+    public boolean editCard(String chatId, long messageId, String text) throws IOException {
+        return withRetry(() -> delegate.editCard(chatId, messageId, text));
+    }
+
+    private <T> T withRetry(Send<T> send) throws IOException {
+        if (!retry.isEnabled()) {
+            try {
+                return send.run();
+            } catch (IOException e) {
+                throw rejectedOr(e);
+            }
+        }
+        long budgetNanos = Duration.parse(retry.getMaxTotal()).toNanos();
+        long start = ticker.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return send.run();
+            } catch (IOException e) {
+                if (!isRetryable(e) || attempt >= retry.getMaxAttempts()) throw rejectedOr(e);
+
+                Duration wait = backoff(attempt, e);
+                if (ticker.nanoTime() - start + wait.toNanos() > budgetNanos) {
+                    exhausted.incrementAndGet();
+                    throw e;
+                }
+                retries.incrementAndGet();
+                if (e instanceof TelegramApiException api && api.isRateLimited()) {
+                    rateLimited.incrementAndGet();
+                    // Flood control applies to the bot, so hold back every send, not just this one
+                    delegate.pause(wait);
+                }
+                System.err.println("[Telegram] Send failed (attempt " + attempt + "), retrying in "
+                        + wait.toMillis() + "ms: " + e.getMessage());
+                sleep(wait);
+            }
+        }
+    }
+
+    static boolean isRetryable(IOException e) {
+        if (e instanceof TelegramApiException api) {
+            int status = api.getHttpStatus();
+            return api.isRateLimited() || status == 503;
+        }
+        return e instanceof ConnectException || e instanceof UnknownHostException || e instanceof NoRouteToHostException;
+    }
+
+    // A 4xx other than 429 refuses this very message, so retrying it later would fail the same way
+    static IOException rejectedOr(IOException e) {
+        if (e instanceof TelegramApiException api && !api.isRateLimited()
+                && api.getHttpStatus() >= 400 && api.getHttpStatus() < 500) {
+            return new MessageRejectedException(e.getMessage(), e);
+        }
+        return e;
+    }
+
+    /**
+     * retry_after when Telegram gave one, otherwise exponential backoff; either way with up to 20% jitter on top
+     */
+    Duration backoff(int attempt, IOException e) {
+        long baseMillis;
+        if (e instanceof TelegramApiException api && api.getRetryAfterSeconds() != null) {
+            baseMillis = api.getRetryAfterSeconds() * 1000L;
+        } else {
+            long initial = Duration.parse(retry.getInitialBackoff()).toMillis();
+            long max = Duration.parse(retry.getMaxBackoff()).toMillis();
+            baseMillis = Math.min(max, initial << Math.min(attempt - 1, 20));
+        }
+        long jitter = (long) (baseMillis * 0.2 * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofMillis(baseMillis + jitter);
+    }
+
+    private void sleep(Duration wait) throws InterruptedIOException {
+        try {
+            ticker.sleep(wait.toNanos());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry a Telegram send");
+        }
+    }
+
+    @FunctionalInterface
+    private interface Send<T> {
+        T run() throws IOException;
+    }
+
+    @Override
+    public String metricsName() {
+        return "telegram.retry";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("retries", retries.get());
+        m.put("rateLimited", rateLimited.get());
+        m.put("exhausted", exhausted.get());
+        return m;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.infrastructure.telegram;
+
+import java.io.IOException;
+
+/**
+ * Non-2xx reply from the Bot API, with the error_code and parameters.retry_after it carried
+ */
+public class TelegramApiException extends IOException {
+
+    private final int httpStatus;
+    private final int errorCode;
+    private final Integer retryAfterSeconds;
+
+    public TelegramApiException(int httpStatus, int errorCode, Integer retryAfterSeconds, String body) {
+        super("Telegram API error: HTTP " + httpStatus + " " + body);
+        this.httpStatus = httpStatus;
+        this.errorCode = errorCode;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getHttpStatus() { return httpStatus; }
+
+    public int getErrorCode() { return errorCode; }
+
+    /**
+     * Seconds Telegram asked us to wait before retrying, or null if it did not say
+     */
+    public Integer getRetryAfterSeconds() { return retryAfterSeconds; }
+
+    public boolean isRateLimited() {
+        return errorCode == 429 || httpStatus == 429;
+    }
+}
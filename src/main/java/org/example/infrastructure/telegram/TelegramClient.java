@@ -1,30 +1,41 @@
 package org.example.infrastructure.telegram;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.FormBody;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
 import org.example.domain.port.MessengerPort;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 
 @Component
 public class TelegramClient implements MessengerPort {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private final TelegramProperties properties;
+    private final OkHttpClient http;
+    private final HttpUrl sendMessageUrl; // built once, the token does not change at runtime
+    private final HttpUrl editMessageTextUrl;
 
-    public TelegramClient(TelegramProperties properties) {
+    public TelegramClient(TelegramProperties properties, @Qualifier("telegramHttpClient") OkHttpClient http) {
         this.properties = properties;
+        this.http = http;
+        this.sendMessageUrl = HttpUrl.get(properties.getApiBaseUrl() + "/bot" + properties.getBotToken() + "/sendMessage");
+        this.editMessageTextUrl = HttpUrl.get(properties.getApiBaseUrl() + "/bot" + properties.getBotToken() + "/editMessageText");
     }
 
     @Override
     public void sendToPm(String text) throws IOException {
         if (properties.getPmChatId() == null) throw new IllegalStateException("telegram.pm-chat-id is null");
-        sendMarkdownV2(properties.getPmChatId(), text);
+        sendMarkdownV2(properties.getPmChatId(), text, false);
     }
 
     /**
@@ -35,74 +46,89 @@ public class TelegramClient implements MessengerPort {
      */
     @Override
     public void sendToChat(String chatId, String text) throws IOException {
-        sendMarkdownV2(chatId, text);
-    }
-
-    private void sendMarkdownV2(String chatId, String text) throws IOException {
-        String endpoint = "https://api.telegram.org/bot" + properties.getBotToken() + "/sendMessage";
-        String body = formEncode(
-                "chat_id", chatId,
-                "text", text,
-                "parse_mode", "MarkdownV2",
-                "disable_web_page_preview", "true",
-                "allow_sending_without_reply", "true"
-        );
-        httpPost(endpoint, body, "application/x-www-form-urlencoded");
+        sendMarkdownV2(chatId, text, false);
     }
 
-    private static String formEncode(String... kv) {
-        if (kv.length % 2 != 0) throw new IllegalArgumentException("key/value pairs required");
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < kv.length; i += 2) {
-            if (i > 0) sb.append('&');
-            sb.append(urlEncode(kv[i])).append('=').append(urlEncode(kv[i + 1]));
+    @Override
+    public long sendCard(String chatId, String text) throws IOException {
+        JsonNode result = sendMarkdownV2(chatId != null ? chatId : pmChatId(), text, true);
+        JsonNode messageId = result != null ? result.path("message_id") : null;
+        if (messageId == null || !messageId.canConvertToLong()) {
+            throw new IOException("Telegram sendMessage reply has no message_id");
         }
-        return sb.toString();
+        return messageId.asLong();
     }
 
-    private static String urlEncode(String s) {
+    @Override
+    public boolean editCard(String chatId, long messageId, String text) throws IOException {
+        RequestBody body = new FormBody.Builder()
+                .add("chat_id", chatId != null ? chatId : pmChatId())
+                .add("message_id", Long.toString(messageId))
+                .add("text", text == null ? "" : text)
+                .add("parse_mode", "MarkdownV2")
+                .add("disable_web_page_preview", "true")
+                .build();
         try {
-            return URLEncoder.encode(s == null ? "" : s, StandardCharsets.UTF_8.name());
-        } catch (Exception e) {
-            return "";
+            httpPost(editMessageTextUrl, body, false);
+            return true;
+        } catch (TelegramApiException e) {
+            if (e.getHttpStatus() != 400) throw e;
+            // Same text as before counts as edited; anything else (not found, can't be edited) needs a new message
+            return e.getMessage().contains("message is not modified");
         }
     }
 
-    private static void httpPost(String endpoint, String body, String contentType) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(endpoint).openConnection();
-        conn.setConnectTimeout(10_000);
-        conn.setReadTimeout(15_000);
-        conn.setDoOutput(true);
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("Content-Type", contentType);
-
-        try (OutputStream os = conn.getOutputStream()) {
-            os.write(body.getBytes(StandardCharsets.UTF_8));
-        }
+    private String pmChatId() {
+        if (properties.getPmChatId() == null) throw new IllegalStateException("telegram.pm-chat-id is null");
+        return properties.getPmChatId();
+    }
 
-        int code = conn.getResponseCode();
-        if (code >= 200 && code < 300) {
-            try (InputStream is = conn.getInputStream()) { drain(is); }
-        } else {
-            String err = readStream(conn.getErrorStream());
-            throw new IOException("Telegram API error: HTTP " + code + " " + err);
-        }
+    private JsonNode sendMarkdownV2(String chatId, String text, boolean readResult) throws IOException {
+        RequestBody body = new FormBody.Builder()
+                .add("chat_id", chatId == null ? "" : chatId)
+                .add("text", text == null ? "" : text)
+                .add("parse_mode", "MarkdownV2")
+                .add("disable_web_page_preview", "true")
+                .add("allow_sending_without_reply", "true")
+                .build();
+        return httpPost(sendMessageUrl, body, readResult);
     }
 
-    private static void drain(InputStream is) throws IOException {
-        if (is == null) return;
-        byte[] buf = new byte[1024];
-        while (is.read(buf) != -1) { /* discard */ }
+    /**
+     * POST a Bot API call and return its "result" when asked for, otherwise null
+     */
+    private JsonNode httpPost(HttpUrl url, RequestBody body, boolean readResult) throws IOException {
+        Request request = new Request.Builder().url(url).post(body).build();
+        try (Response response = http.newCall(request).execute()) {
+            ResponseBody responseBody = response.body();
+            if (!response.isSuccessful()) {
+                String err = responseBody != null ? responseBody.string() : "";
+                throw apiError(response.code(), err);
+            }
+            if (responseBody == null) return null;
+            if (readResult) return MAPPER.readTree(responseBody.byteStream()).path("result");
+            // Read the body to the end so the connection goes back to the pool
+            responseBody.source().readAll(Okio.blackhole());
+            return null;
+        }
     }
 
-    private static String readStream(InputStream is) throws IOException {
-        if (is == null) return "";
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            StringBuilder sb = new StringBuilder();
-            String line; while ((line = br.readLine()) != null) sb.append(line);
-            return sb.toString();
+    /**
+     * Read error_code and parameters.retry_after from an error reply; the body may not even be JSON
+     */
+    private static TelegramApiException apiError(int status, String body) {
+        int errorCode = status;
+        Integer retryAfter = null;
+        try {
+            JsonNode root = MAPPER.readTree(body);
+            if (root != null) {
+                errorCode = root.path("error_code").asInt(status);
+                JsonNode retryAfterNode = root.path("parameters").path("retry_after");
+                if (retryAfterNode.canConvertToInt()) retryAfter = retryAfterNode.asInt();
+            }
+        } catch (IOException ignored) {
+            // keep the HTTP status
         }
+        return new TelegramApiException(status, errorCode, retryAfter, body);
     }
 }
-
-
@@ -0,0 +1,40 @@
+package org.example.infrastructure.telegram;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.example.infrastructure.http.HttpTransportMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pooled OkHttp transport for the Telegram Bot API, so draining a backlog reuses a few warm
+ * (TLS, HTTP/2 where negotiated) connections instead of a handshake per message.
+ */
+@Configuration
+public class TelegramHttpConfiguration {
+
+    @Bean
+    public HttpTransportMetrics telegramTransportMetrics() {
+        return new HttpTransportMetrics("telegram.http");
+    }
+
+    @Bean
+    public OkHttpClient telegramHttpClient(TelegramProperties properties) {
+        TelegramProperties.Http http = properties.getHttp();
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(),
+                        Duration.parse(http.getKeepAlive()).toMillis(), TimeUnit.MILLISECONDS))
+                .connectTimeout(Duration.parse(http.getConnectTimeout()))
+                .readTimeout(Duration.parse(http.getReadTimeout()))
+                .callTimeout(Duration.parse(http.getCallTimeout()))
+                .protocols(http.isHttp2() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+                .retryOnConnectionFailure(false) // a silent retry after a write could send twice; RetryingMessenger decides
+                .eventListenerFactory(telegramTransportMetrics())
+                .build();
+    }
+}
@@ -2,11 +2,19 @@ package org.example.infrastructure.telegram;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "telegram")
 public class TelegramProperties {
     private String botToken;
     private String groupChatId;
     private String pmChatId;
+    private String apiBaseUrl = "https://api.telegram.org";
+    private Http http = new Http();
+    private RateLimit rateLimit = new RateLimit();
+    private Retry retry = new Retry();
+    private Routing routing = new Routing();
 
     public String getBotToken() { return botToken; }
     public void setBotToken(String botToken) { this.botToken = botToken; }
@@ -16,6 +24,137 @@ public class TelegramProperties {
 
     public String getPmChatId() { return pmChatId; }
     public void setPmChatId(String pmChatId) { this.pmChatId = pmChatId; }
-}
 
+    public String getApiBaseUrl() { return apiBaseUrl; }
+    public void setApiBaseUrl(String apiBaseUrl) { this.apiBaseUrl = apiBaseUrl; }
+
+    public Http getHttp() { return http; }
+    public void setHttp(Http http) { this.http = http; }
+
+    public RateLimit getRateLimit() { return rateLimit; }
+    public void setRateLimit(RateLimit rateLimit) { this.rateLimit = rateLimit; }
+
+    public Retry getRetry() { return retry; }
+    public void setRetry(Retry retry) { this.retry = retry; }
+
+    public Routing getRouting() { return routing; }
+    public void setRouting(Routing routing) { this.routing = routing; }
+
+    public static class Http {
+        private int maxIdleConnections = 5;
+        private String keepAlive = "PT5M";
+        private String connectTimeout = "PT10S";
+        private String readTimeout = "PT15S";
+        private String callTimeout = "PT30S"; // upper bound for one sendMessage including retries on the connection
+        private boolean http2 = true;
+
+        public int getMaxIdleConnections() { return maxIdleConnections; }
+        public void setMaxIdleConnections(int maxIdleConnections) { this.maxIdleConnections = maxIdleConnections; }
+
+        public String getKeepAlive() { return keepAlive; }
+        public void setKeepAlive(String keepAlive) { this.keepAlive = keepAlive; }
+
+        public String getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(String connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public String getReadTimeout() { return readTimeout; }
+        public void setReadTimeout(String readTimeout) { this.readTimeout = readTimeout; }
+
+        public String getCallTimeout() { return callTimeout; }
+        public void setCallTimeout(String callTimeout) { this.callTimeout = callTimeout; }
+
+        public boolean isHttp2() { return http2; }
+        public void setHttp2(boolean http2) { this.http2 = http2; }
+    }
+
+    public static class RateLimit {
+        private boolean enabled = true;
+        private double globalPerSecond = 30; // Bot API: about 30 messages per second overall
+        private double perChatPerSecond = 1; // Bot API: about one message per second in a chat
+        private int perChatBurst = 3; // short bursts a single chat tolerates
+        private int perGroupPerMinute = 20; // Bot API: 20 messages per minute in a group
+        private int perGroupBurst = 5;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public double getGlobalPerSecond() { return globalPerSecond; }
+        public void setGlobalPerSecond(double globalPerSecond) { this.globalPerSecond = globalPerSecond; }
+
+        public double getPerChatPerSecond() { return perChatPerSecond; }
+        public void setPerChatPerSecond(double perChatPerSecond) { this.perChatPerSecond = perChatPerSecond; }
+
+        public int getPerChatBurst() { return perChatBurst; }
+        public void setPerChatBurst(int perChatBurst) { this.perChatBurst = perChatBurst; }
 
+        public int getPerGroupPerMinute() { return perGroupPerMinute; }
+        public void setPerGroupPerMinute(int perGroupPerMinute) { this.perGroupPerMinute = perGroupPerMinute; }
+
+        public int getPerGroupBurst() { return perGroupBurst; }
+        public void setPerGroupBurst(int perGroupBurst) { this.perGroupBurst = perGroupBurst; }
+    }
+
+    public static class Retry {
+        private boolean enabled = true;
+        private int maxAttempts = 5;
+        private String initialBackoff = "PT0.5S";
+        private String maxBackoff = "PT30S";
+        private String maxTotal = "PT2M"; // give up once retrying one message would take longer than this
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+        public String getInitialBackoff() { return initialBackoff; }
+        public void setInitialBackoff(String initialBackoff) { this.initialBackoff = initialBackoff; }
+
+        public String getMaxBackoff() { return maxBackoff; }
+        public void setMaxBackoff(String maxBackoff) { this.maxBackoff = maxBackoff; }
+
+        public String getMaxTotal() { return maxTotal; }
+        public void setMaxTotal(String maxTotal) { this.maxTotal = maxTotal; }
+    }
+
+    /**
+     * Rules are checked in order and the first match picks the chat; notifications matching none go to the PM chat
+     */
+    public static class Routing {
+        private boolean enabled = false;
+        private List<Rule> rules = new ArrayList<>();
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public List<Rule> getRules() { return rules; }
+        public void setRules(List<Rule> rules) { this.rules = rules; }
+    }
+
+    /**
+     * Matches when every non-empty list contains the notification's value, case-insensitively.
+     * A rule with no lists matches everything.
+     */
+    public static class Rule {
+        private String chatId;
+        private List<String> projects = new ArrayList<>(); // issue ID prefix, e.g. BUG for BUG-12
+        private List<String> assignees = new ArrayList<>();
+        private List<String> priorities = new ArrayList<>();
+        private List<String> tags = new ArrayList<>(); // any one of the issue's tags
+
+        public String getChatId() { return chatId; }
+        public void setChatId(String chatId) { this.chatId = chatId; }
+
+        public List<String> getProjects() { return projects; }
+        public void setProjects(List<String> projects) { this.projects = projects; }
+
+        public List<String> getAssignees() { return assignees; }
+        public void setAssignees(List<String> assignees) { this.assignees = assignees; }
+
+        public List<String> getPriorities() { return priorities; }
+        public void setPriorities(List<String> priorities) { this.priorities = priorities; }
+
+        public List<String> getTags() { return tags; }
+        public void setTags(List<String> tags) { this.tags = tags; }
+    }
+}
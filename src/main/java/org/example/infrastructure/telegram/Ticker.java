@@ -0,0 +1,23 @@
+package org.example.infrastructure.telegram;
+
+/**
+ * Monotonic clock and sleep behind Telegram pacing and retries, so tests can run them on a fake clock
+ */
+public interface Ticker {
+
+    Ticker SYSTEM = new Ticker() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleep(long nanos) throws InterruptedException {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+    };
+
+    long nanoTime();
+
+    void sleep(long nanos) throws InterruptedException;
+}
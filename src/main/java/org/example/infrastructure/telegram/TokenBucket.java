@@ -0,0 +1,39 @@
+package org.example.infrastructure.telegram;
+
+/**
+ * Token bucket holding up to capacity tokens, refilled continuously at a fixed rate.
+ * Not thread-safe; {@link RateLimitedMessenger} calls it under its own lock.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double capacity, double tokensPerSecond, long now) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000.0;
+        this.tokens = this.capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Nanoseconds until one token is available, 0 if it is available now
+     */
+    long nanosUntilAvailable(long now) {
+        refill(now);
+        if (tokens >= 1) return 0;
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    void take(long now) {
+        refill(now);
+        tokens -= 1;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
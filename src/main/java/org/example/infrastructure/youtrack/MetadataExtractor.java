@@ -0,0 +1,204 @@
+package org.example.infrastructure.youtrack;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pulls everything a notification view needs out of the decoded metadata in a single streaming pass:
+ * header, issue id/summary, the configured custom fields, added tags, tag reasons and the first comment.
+ * No intermediate String or JSON tree is built.
+ */
+@Component
+public class MetadataExtractor {
+
+    private final JsonFactory factory = new JsonFactory();
+    private final Map<String, String> projectedFields = new LinkedHashMap<>(); // lower-case name -> configured name
+
+    public MetadataExtractor(YouTrackProperties properties) {
+        for (String field : properties.getProjectedFields()) {
+            projectedFields.putIfAbsent(field.toLowerCase(Locale.ROOT), field);
+        }
+    }
+
+    public Metadata extract(byte[] metadata) throws IOException {
+        Metadata m = new Metadata();
+        if (metadata == null || metadata.length == 0) {
+            return m;
+        }
+        try (JsonParser p = factory.createParser(metadata)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                return m;
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                JsonToken token = p.nextToken();
+                switch (name) {
+                    case "header" -> m.header = scalar(p, token);
+                    case "issue" -> {
+                        if (token == JsonToken.START_OBJECT) readIssue(p, m); else p.skipChildren();
+                    }
+                    case "change" -> {
+                        if (token == JsonToken.START_OBJECT) readChange(p, m); else p.skipChildren();
+                    }
+                    case "reason" -> {
+                        if (token == JsonToken.START_OBJECT) readReason(p, m); else p.skipChildren();
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+        }
+        return m;
+    }
+
+    private void readIssue(JsonParser p, Metadata m) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "id" -> m.issueId = scalar(p, token);
+                case "summary" -> m.summary = scalar(p, token);
+                case "fields" -> {
+                    if (token == JsonToken.START_ARRAY) readFields(p, m); else p.skipChildren();
+                }
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void readFields(JsonParser p, Metadata m) throws IOException {
+        JsonToken token;
+        while ((token = p.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            String fieldName = null;
+            String value = "";
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                JsonToken valueToken = p.nextToken();
+                switch (name) {
+                    case "name" -> fieldName = scalar(p, valueToken);
+                    case "value" -> value = scalar(p, valueToken);
+                    default -> p.skipChildren();
+                }
+            }
+            String projected = fieldName == null ? null : projectedFields.get(fieldName.toLowerCase(Locale.ROOT));
+            if (projected != null) {
+                m.fields.putIfAbsent(projected, value); // first matching field wins
+            }
+        }
+    }
+
+    private void readChange(JsonParser p, Metadata m) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            JsonToken token = p.nextToken();
+            if ("events".equals(name) && token == JsonToken.START_ARRAY) {
+                readEvents(p, m);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private void readEvents(JsonParser p, Metadata m) throws IOException {
+        JsonToken token;
+        while ((token = p.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            String category = "";
+            List<String> addedValues = new ArrayList<>();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                JsonToken valueToken = p.nextToken();
+                switch (name) {
+                    case "category" -> category = scalar(p, valueToken);
+                    case "addedValues" -> {
+                        if (valueToken == JsonToken.START_ARRAY) readNames(p, addedValues); else p.skipChildren();
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+            if ("TAGS".equals(category)) {
+                m.addedTags.addAll(addedValues);
+            } else if ("COMMENT".equals(category) && m.comment == null && !addedValues.isEmpty()) {
+                m.comment = addedValues.get(0);
+            }
+        }
+    }
+
+    private void readReason(JsonParser p, Metadata m) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            JsonToken token = p.nextToken();
+            if ("tagReasons".equals(name) && token == JsonToken.START_ARRAY) {
+                readNames(p, m.tagReasons);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    // Collects the "name" attribute of every element of an array, "" for elements without one
+    private static void readNames(JsonParser p, List<String> out) throws IOException {
+        JsonToken token;
+        while ((token = p.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            String value = "";
+            if (token == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = p.getCurrentName();
+                    JsonToken valueToken = p.nextToken();
+                    if ("name".equals(name)) {
+                        value = scalar(p, valueToken);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+            out.add(value);
+        }
+    }
+
+    // Text of a scalar value; objects, arrays and null read as "" like JsonNode.asText("")
+    private static String scalar(JsonParser p, JsonToken token) throws IOException {
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return "";
+        }
+        if (token.isStructStart()) {
+            p.skipChildren();
+            return "";
+        }
+        return p.getText();
+    }
+
+    public static class Metadata {
+        public String header = "";
+        public String issueId = "";
+        public String summary = "";
+        public String comment; // null when the change has no comment event
+        public final Map<String, String> fields = new LinkedHashMap<>();
+        public final List<String> addedTags = new ArrayList<>();
+        public final List<String> tagReasons = new ArrayList<>();
+
+        public String field(String name) {
+            for (Map.Entry<String, String> e : fields.entrySet()) {
+                if (e.getKey().equalsIgnoreCase(name)) return e.getValue();
+            }
+            return "";
+        }
+    }
+}
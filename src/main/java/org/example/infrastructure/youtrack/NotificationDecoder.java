@@ -0,0 +1,218 @@
+package org.example.infrastructure.youtrack;
+
+import jakarta.annotation.PreDestroy;
+import org.example.domain.port.IssueTrackerPort.NotificationConsumer;
+import org.example.domain.view.NotificationView;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decodes the base64 (optionally gzip-compressed) content and metadata attributes of YouTrack notifications.
+ * Work is spread over a fork-join pool while results are handed on in the order they were submitted;
+ * inflaters and output buffers are pooled instead of being allocated per attribute.
+ */
+@Component
+public class NotificationDecoder {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    // gzip header flags (RFC 1952)
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final ConcurrentLinkedQueue<InflateBuffers> buffers = new ConcurrentLinkedQueue<>();
+
+    public NotificationDecoder(YouTrackProperties properties) {
+        int configured = properties.getDecode().getParallelism();
+        this.parallelism = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+        // With a single worker there is nothing to gain from a pool, decode on the polling thread
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Start an ordered decoding stage feeding the given consumer
+     */
+    public OrderedDecodeStage newStage(NotificationConsumer consumer) {
+        return new OrderedDecodeStage(consumer);
+    }
+
+    /**
+     * Decode a base64 attribute into text, inflating it when it is gzip-compressed
+     */
+    public String decodeToString(String input) {
+        return new String(decode(input), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode a base64 attribute into raw bytes, inflating it when it is gzip-compressed.
+     * Input that is not valid base64 or gzip is returned unchanged.
+     */
+    public byte[] decode(String input) {
+        if (input == null || input.isBlank()) return EMPTY;
+        try {
+            byte[] decoded = Base64.getDecoder().decode(input);
+            if (decoded.length >= 2 && decoded[0] == (byte) 0x1f && decoded[1] == (byte) 0x8b) {
+                return gunzip(decoded);
+            }
+            return decoded;
+        } catch (Exception e) {
+            return input.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private byte[] gunzip(byte[] data) throws DataFormatException {
+        InflateBuffers b = buffers.poll();
+        if (b == null) {
+            b = new InflateBuffers();
+        }
+        try {
+            int offset = skipGzipHeader(data);
+            Inflater inflater = b.inflater;
+            inflater.reset();
+            inflater.setInput(data, offset, data.length - offset);
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == b.out.length) {
+                    b.out = Arrays.copyOf(b.out, b.out.length * 2);
+                }
+                int n = inflater.inflate(b.out, length, b.out.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated gzip stream");
+                }
+                length += n;
+            }
+            return Arrays.copyOf(b.out, length);
+        } finally {
+            // Don't keep an oversized buffer around because of one unusually large notification
+            if (b.out.length > MAX_POOLED_BUFFER_SIZE) {
+                b.out = new byte[INITIAL_BUFFER_SIZE];
+            }
+            buffers.offer(b);
+        }
+    }
+
+    private static int skipGzipHeader(byte[] data) throws DataFormatException {
+        if (data.length < 18 || data[2] != 8) {
+            throw new DataFormatException("Not a deflate gzip stream");
+        }
+        int flags = data[3] & 0xff;
+        int pos = 10;
+        if ((flags & FEXTRA) != 0) {
+            int extraLength = (data[pos] & 0xff) | ((data[pos + 1] & 0xff) << 8);
+            pos += 2 + extraLength;
+        }
+        if ((flags & FNAME) != 0) {
+            pos = skipZeroTerminated(data, pos);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            pos = skipZeroTerminated(data, pos);
+        }
+        if ((flags & FHCRC) != 0) {
+            pos += 2;
+        }
+        if (pos >= data.length) {
+            throw new DataFormatException("Truncated gzip header");
+        }
+        return pos;
+    }
+
+    private static int skipZeroTerminated(byte[] data, int pos) {
+        while (pos < data.length && data[pos] != 0) pos++;
+        return pos + 1;
+    }
+
+    private static final class InflateBuffers {
+        final Inflater inflater = new Inflater(true);
+        byte[] out = new byte[INITIAL_BUFFER_SIZE];
+    }
+
+    /**
+     * Runs decode tasks on the pool and passes results to the consumer in submission order.
+     * At most a few tasks per worker are in flight, so memory stays bounded however large the window is.
+     */
+    public final class OrderedDecodeStage implements AutoCloseable {
+        private final NotificationConsumer consumer;
+        private final Deque<Future<NotificationView>> inFlight = new ArrayDeque<>();
+        private final int windowSize = parallelism * 4;
+
+        private OrderedDecodeStage(NotificationConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        public void submit(Callable<NotificationView> task) throws IOException {
+            if (pool == null) {
+                consumer.accept(call(task));
+                return;
+            }
+            inFlight.add(pool.submit(task));
+            if (inFlight.size() >= windowSize) {
+                consumer.accept(await(inFlight.poll()));
+            }
+        }
+
+        /**
+         * Wait for the remaining tasks and hand their results on
+         */
+        public void finish() throws IOException {
+            while (!inFlight.isEmpty()) {
+                consumer.accept(await(inFlight.poll()));
+            }
+        }
+
+        @Override
+        public void close() {
+            inFlight.forEach(f -> f.cancel(true));
+            inFlight.clear();
+        }
+
+        private NotificationView call(Callable<NotificationView> task) throws IOException {
+            try {
+                return task.call();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to decode notification: " + e.getMessage(), e);
+            }
+        }
+
+        private NotificationView await(Future<NotificationView> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while decoding notifications", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException io) throw io;
+                if (cause instanceof RuntimeException re) throw re;
+                throw new IOException("Failed to decode notification: " + cause.getMessage(), cause);
+            }
+        }
+    }
+}
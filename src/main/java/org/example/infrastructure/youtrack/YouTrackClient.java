@@ -1,32 +1,48 @@
 package org.example.infrastructure.youtrack;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import org.example.domain.model.TimestampCursor;
 import org.example.domain.port.IssueTrackerPort;
 import org.example.domain.view.NotificationView;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 @Component
 public class YouTrackClient implements IssueTrackerPort {
 
     private final YouTrackProperties properties;
-    private final OkHttpClient http = new OkHttpClient();
+    private final OkHttpClient http;
     private final ObjectMapper om = new ObjectMapper();
+    private final NotificationDecoder decoder;
+    private final MetadataExtractor extractor;
 
-    public YouTrackClient(YouTrackProperties properties) {
+    public YouTrackClient(YouTrackProperties properties,
+                          @Qualifier("youTrackHttpClient") OkHttpClient http,
+                          NotificationDecoder decoder,
+                          MetadataExtractor extractor) {
         this.properties = properties;
+        this.http = http;
+        this.decoder = decoder;
+        this.extractor = extractor;
     }
 
     @Override
@@ -36,130 +52,232 @@ public class YouTrackClient implements IssueTrackerPort {
 
     @Override
     public List<NotificationView> fetchNotificationsFromTimestamp(String timestampCursor, int top) throws IOException {
+        List<NotificationView> list = new ArrayList<>();
+        streamNotificationsFromTimestamp(timestampCursor, top, list::add);
+        return list;
+    }
+
+    @Override
+    public void streamNotificationsFromTimestamp(String timestampCursor, int top, NotificationConsumer consumer) throws IOException {
         String base = normalizeBase(properties.getBaseUrl());
-        HttpUrl.Builder urlBuilder = HttpUrl.parse(base + "/api/users/notifications")
-                .newBuilder()
-                .addQueryParameter("fields", "id,content,metadata")
-                .addQueryParameter("all", "true");  // Get notifications for all users (requires admin permissions)
-        
-        // Add top limit if provided
-        if (top > 0) {
-            urlBuilder.addQueryParameter("$top", String.valueOf(top));
+        YouTrackProperties.Paging paging = properties.getPaging();
+        if (paging.isEnabled() && top > paging.getPageSize()) {
+            streamPaged(base, timestampCursor, top, consumer);
+            return;
         }
-        
-        HttpUrl url = urlBuilder.build();
 
-        Request req = new Request.Builder()
-                .url(url)
-                .header("Authorization", "Bearer " + properties.getToken())
-                .build();
+        Request req = notificationsRequest(base, timestampCursor, 0, top);
 
         try (Response resp = http.newCall(req).execute()) {
             if (!resp.isSuccessful()) {
                 throw new IOException("YouTrack " + resp.code() + ": " + resp.message());
             }
-            JsonNode arr = om.readTree(resp.body().byteStream());
-            List<NotificationView> list = new ArrayList<>();
-            if (arr.isArray()) {
-                for (JsonNode n : arr) {
-                    NotificationView x = new NotificationView();
-                    x.id = n.path("id").asText();
-                    x.content = decodeIfGzipBase64(n.path("content").asText(""));
-
-                    String metadataRaw = decodeIfGzipBase64(n.path("metadata").asText(""));
-                    JsonNode metadata = om.readTree(metadataRaw);
-
-                    JsonNode issue = metadata.path("issue");
-                    JsonNode fields = issue.path("fields");
-                    JsonNode change = metadata.path("change");
-                    JsonNode reason = metadata.path("reason");
-
-                    String issueId = issue.path("id").asText("");
-                    String summary = issue.path("summary").asText("");
-                    String state = fieldValueByName(fields, "State");
-                    String assignee = fieldValueByName(fields, "Assignee");
-                    String priority = fieldValueByName(fields, "Priority");
-                    String header = metadata.path("header").asText("");
-
-                    List<String> tags = tagsAdded(change);
-                    if (tags.isEmpty()) {
-                        reason.path("tagReasons").forEach(t -> tags.add(t.path("name").asText("")));
-                    }
+            try (JsonParser parser = om.getFactory().createParser(resp.body().byteStream());
+                 NotificationDecoder.OrderedDecodeStage stage = decoder.newStage(consumer)) {
+                streamArray(parser, base, timestampCursor, null, stage);
+                stage.finish();
+            }
+        }
+    }
 
-                    String comment = commentText(change);
-
-                    x.title = summary;
-                    x.status = state;
-                    x.read = n.path("read").asBoolean(false);
-                    x.updated = n.path("updated").asText(""); // Get updated timestamp from API
-                    x.issueId = issueId;
-                    x.assignee = assignee;
-                    x.priority = priority;
-                    x.header = header;
-                    x.tags = tags;
-                    x.comment = comment;
-                    x.link = base + "/issue/" + issueId;
-
-                    list.add(x);
+    /**
+     * Split the window into $skip/$top pages and keep a few page requests in flight at once.
+     * Pages are decoded strictly in order as they arrive; a failed page is retried on its own.
+     * The list can shift while it is paged, so each page re-reads the tail of the previous one
+     * and notifications already seen in this window are dropped.
+     */
+    private void streamPaged(String base, String timestampCursor, int top, NotificationConsumer consumer) throws IOException {
+        YouTrackProperties.Paging paging = properties.getPaging();
+        int pageSize = paging.getPageSize();
+        int pages = (top + pageSize - 1) / pageSize;
+        int concurrency = Math.max(1, paging.getConcurrency());
+        int overlap = Math.max(0, Math.min(paging.getOverlap(), pageSize));
+        Set<String> seen = new HashSet<>();
+
+        Deque<CompletableFuture<byte[]>> inFlight = new ArrayDeque<>();
+        int nextPage = 0;
+        try (NotificationDecoder.OrderedDecodeStage stage = decoder.newStage(consumer)) {
+            while (nextPage < pages && inFlight.size() < concurrency) {
+                inFlight.add(fetchPage(base, timestampCursor, nextPage++, pageSize, overlap, top, paging.getRetries()));
+            }
+            int page = 0;
+            while (!inFlight.isEmpty()) {
+                byte[] body = awaitPage(inFlight.poll());
+                int expected = pageEnd(page, pageSize, top) - pageStart(page, pageSize, overlap);
+                int received;
+                try (JsonParser parser = om.getFactory().createParser(body)) {
+                    received = streamArray(parser, base, timestampCursor, seen, stage);
+                }
+                page++;
+                // A short page means the end of the notification list, later pages would be empty
+                if (received < expected) {
+                    break;
+                }
+                if (nextPage < pages) {
+                    inFlight.add(fetchPage(base, timestampCursor, nextPage++, pageSize, overlap, top, paging.getRetries()));
                 }
             }
-            return list;
+            stage.finish();
+        } finally {
+            inFlight.forEach(f -> f.cancel(true));
         }
     }
 
-    private static String normalizeBase(String baseUrl) {
-        if (baseUrl == null) return "";
-        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    private CompletableFuture<byte[]> fetchPage(String base, String timestampCursor, int page, int pageSize,
+                                                int overlap, int top, int retries) {
+        int skip = pageStart(page, pageSize, overlap);
+        Request req = notificationsRequest(base, timestampCursor, skip, pageEnd(page, pageSize, top) - skip);
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        enqueue(req, retries, future);
+        return future;
+    }
+
+    private static int pageStart(int page, int pageSize, int overlap) {
+        return Math.max(0, page * pageSize - overlap);
+    }
+
+    private static int pageEnd(int page, int pageSize, int top) {
+        return Math.min((page + 1) * pageSize, top);
     }
 
-    private static String fieldValueByName(JsonNode fields, String name) {
-        if (fields != null && fields.isArray()) {
-            for (JsonNode f : fields) {
-                if (name.equalsIgnoreCase(f.path("name").asText())) {
-                    return f.path("value").asText("");
+    private void enqueue(Request req, int retriesLeft, CompletableFuture<byte[]> future) {
+        Call call = http.newCall(req);
+        future.whenComplete((body, error) -> {
+            if (future.isCancelled()) call.cancel();
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                retryOrFail(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response resp) {
+                try (resp) {
+                    if (resp.isSuccessful()) {
+                        future.complete(resp.body().bytes());
+                        return;
+                    }
+                    IOException error = new IOException("YouTrack " + resp.code() + ": " + resp.message());
+                    if (resp.code() >= 500) {
+                        retryOrFail(error);
+                    } else {
+                        future.completeExceptionally(error);
+                    }
+                } catch (IOException e) {
+                    retryOrFail(e);
                 }
             }
-        }
-        return "";
-    }
 
-    private static List<String> tagsAdded(JsonNode change) {
-        List<String> out = new ArrayList<>();
-        change.path("events").forEach(ev -> {
-            if ("TAGS".equals(ev.path("category").asText())) {
-                ev.path("addedValues").forEach(v -> out.add(v.path("name").asText("")));
+            private void retryOrFail(IOException e) {
+                if (retriesLeft > 0 && !future.isDone()) {
+                    System.out.println("[YouTrack] Retrying page " + req.url().queryParameter("$skip") + ": " + e.getMessage());
+                    enqueue(req, retriesLeft - 1, future);
+                } else {
+                    future.completeExceptionally(e);
+                }
             }
         });
-        return out;
     }
 
-    private static String commentText(JsonNode change) {
-        for (JsonNode ev : change.path("events")) {
-            if ("COMMENT".equals(ev.path("category").asText())) {
-                JsonNode arr = ev.path("addedValues");
-                if (arr.isArray() && arr.size() > 0) {
-                    return arr.get(0).path("name").asText("");
-                }
-            }
+    private static byte[] awaitPage(CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching YouTrack notifications", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            throw new IOException("YouTrack page fetch failed: " + cause.getMessage(), cause);
         }
-        return "";
     }
 
-    private static String decodeIfGzipBase64(String input) {
-        if (input == null || input.isBlank()) return "";
-        try {
-            byte[] decoded = Base64.getDecoder().decode(input);
-            if (decoded.length >= 2 && decoded[0] == (byte) 0x1f && decoded[1] == (byte) 0x8b) {
-                try (GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(decoded))) {
-                    return new String(gis.readAllBytes(), StandardCharsets.UTF_8);
-                }
-            } else {
-                return new String(decoded, StandardCharsets.UTF_8);
+    private Request notificationsRequest(String base, String timestampCursor, int skip, int top) {
+        HttpUrl.Builder urlBuilder = HttpUrl.parse(base + "/api/users/notifications")
+                .newBuilder()
+                .addQueryParameter("fields", properties.isFetchContent() ? "id,updated,content,metadata" : "id,updated,metadata")
+                .addQueryParameter("all", "true");  // Get notifications for all users (requires admin permissions)
+
+        if (skip > 0) {
+            urlBuilder.addQueryParameter("$skip", String.valueOf(skip));
+        }
+        // Add top limit if provided
+        if (top > 0) {
+            urlBuilder.addQueryParameter("$top", String.valueOf(top));
+        }
+
+        // YouTrack's notifications endpoint has no updated filter, so the cursor is only sent when
+        // youtrack.cursor-parameter names one (e.g. behind a filtering proxy). Either way the window is
+        // filtered below, so notifications older than the cursor are never decoded.
+        String cursorParameter = properties.getCursorParameter();
+        if (timestampCursor != null && cursorParameter != null && !cursorParameter.isBlank()) {
+            urlBuilder.addQueryParameter(cursorParameter, timestampCursor);
+        }
+
+        return new Request.Builder()
+                .url(urlBuilder.build())
+                .header("Authorization", "Bearer " + properties.getToken())
+                .build();
+    }
+
+    /**
+     * Walk a notification array element by element, so only the notifications being decoded are kept as trees
+     * @param seen ids already read in this window, or null when there is a single request
+     * @return the number of elements in the array, including the ones skipped by the cursor or as repeats
+     */
+    private int streamArray(JsonParser parser, String base, String timestampCursor, Set<String> seen,
+                            NotificationDecoder.OrderedDecodeStage stage) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            return 0;
+        }
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            JsonNode n = om.readTree(parser);
+            count++;
+            if (!TimestampCursor.isAtOrAfter(n.path("updated").asText(""), timestampCursor)) {
+                continue;
             }
-        } catch (Exception e) {
-            return input;
+            if (seen != null && !seen.add(n.path("id").asText())) {
+                continue;
+            }
+            stage.submit(() -> toView(n, base));
         }
+        return count;
     }
-}
 
+    private NotificationView toView(JsonNode n, String base) throws IOException {
+        NotificationView x = new NotificationView();
+        x.id = n.path("id").asText();
+        // content is only requested (and decoded) when youtrack.fetch-content is on
+        x.content = n.has("content") ? decoder.decodeToString(n.path("content").asText("")) : "";
 
+        // Custom fields, tags and the comment are all collected in one pass over the decoded bytes
+        MetadataExtractor.Metadata metadata = extractor.extract(decoder.decode(n.path("metadata").asText("")));
+
+        List<String> tags = metadata.addedTags;
+        if (tags.isEmpty()) {
+            tags.addAll(metadata.tagReasons);
+        }
+
+        String issueId = metadata.issueId;
+        x.title = metadata.summary;
+        x.status = metadata.field("State");
+        x.read = n.path("read").asBoolean(false);
+        x.updated = n.path("updated").asText(""); // Get updated timestamp from API
+        x.issueId = issueId;
+        x.assignee = metadata.field("Assignee");
+        x.priority = metadata.field("Priority");
+        x.header = metadata.header;
+        x.tags = tags;
+        x.comment = metadata.comment == null ? "" : metadata.comment;
+        x.fields = metadata.fields;
+        x.link = base + "/issue/" + issueId;
+        return x;
+    }
+
+    private static String normalizeBase(String baseUrl) {
+        if (baseUrl == null) return "";
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.infrastructure.youtrack;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.example.infrastructure.http.HttpTransportMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One shared OkHttp transport for all YouTrack traffic, so polling and /create reuse the same
+ * warm (TLS) connections instead of each keeping its own pool and dispatcher.
+ */
+@Configuration
+public class YouTrackHttpConfiguration {
+
+    @Bean
+    public HttpTransportMetrics youTrackTransportMetrics() {
+        return new HttpTransportMetrics("youtrack.http");
+    }
+
+    @Bean
+    public OkHttpClient youTrackHttpClient(YouTrackProperties properties) {
+        YouTrackProperties.Http http = properties.getHttp();
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(http.getMaxRequestsPerHost());
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(),
+                        Duration.parse(http.getKeepAlive()).toMillis(), TimeUnit.MILLISECONDS))
+                .connectTimeout(Duration.parse(http.getConnectTimeout()))
+                .readTimeout(Duration.parse(http.getReadTimeout()))
+                .callTimeout(Duration.parse(http.getCallTimeout()))
+                .retryOnConnectionFailure(true)
+                .eventListenerFactory(youTrackTransportMetrics());
+
+        // HTTP/2 is negotiated through ALPN on TLS connections and falls back to HTTP/1.1
+        builder.protocols(http.isHttp2() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1));
+
+        // OkHttp already asks for gzip and decompresses transparently when Accept-Encoding is not set,
+        // so disabling compression means explicitly asking for the identity encoding
+        if (!http.isCompression()) {
+            builder.addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                    .header("Accept-Encoding", "identity")
+                    .build()));
+        }
+
+        return builder.build();
+    }
+}
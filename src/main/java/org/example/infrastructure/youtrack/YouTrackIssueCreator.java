@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.*;
 import org.example.domain.model.ProjectInfo;
 import org.example.domain.port.IssueCreationPort;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -15,11 +16,12 @@ import java.util.List;
 public class YouTrackIssueCreator implements IssueCreationPort {
 
     private final YouTrackProperties properties;
-    private final OkHttpClient http = new OkHttpClient();
+    private final OkHttpClient http;
     private final ObjectMapper om = new ObjectMapper();
 
-    public YouTrackIssueCreator(YouTrackProperties properties) {
+    public YouTrackIssueCreator(YouTrackProperties properties, @Qualifier("youTrackHttpClient") OkHttpClient http) {
         this.properties = properties;
+        this.http = http;
     }
 
     /**
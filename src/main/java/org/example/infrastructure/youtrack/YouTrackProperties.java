@@ -2,16 +2,133 @@ package org.example.infrastructure.youtrack;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "youtrack")
 public class YouTrackProperties {
     private String baseUrl;
     private String token;
+    private String cursorParameter; // not sent when empty, YouTrack itself has no such filter
+    private boolean fetchContent = false; // Formatter only renders metadata-derived fields
+    private Decode decode = new Decode();
+    private Http http = new Http();
+    private Paging paging = new Paging();
+    private Webhook webhook = new Webhook();
+    private List<String> projectedFields = new ArrayList<>(List.of("State", "Assignee", "Priority"));
 
     public String getBaseUrl() { return baseUrl; }
     public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
 
     public String getToken() { return token; }
     public void setToken(String token) { this.token = token; }
-}
 
+    public String getCursorParameter() { return cursorParameter; }
+    public void setCursorParameter(String cursorParameter) { this.cursorParameter = cursorParameter; }
+
+    public boolean isFetchContent() { return fetchContent; }
+    public void setFetchContent(boolean fetchContent) { this.fetchContent = fetchContent; }
+
+    public List<String> getProjectedFields() { return projectedFields; }
+    public void setProjectedFields(List<String> projectedFields) { this.projectedFields = projectedFields; }
+
+    public Decode getDecode() { return decode; }
+    public void setDecode(Decode decode) { this.decode = decode; }
+
+    public Http getHttp() { return http; }
+    public void setHttp(Http http) { this.http = http; }
+
+    public Paging getPaging() { return paging; }
+    public void setPaging(Paging paging) { this.paging = paging; }
+
+    public Webhook getWebhook() { return webhook; }
+    public void setWebhook(Webhook webhook) { this.webhook = webhook; }
+
+    public static class Decode {
+        private int parallelism = 0; // 0 = number of available processors, 1 = decode on the polling thread
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    }
+
+    public static class Webhook {
+        private boolean enabled = false;
+        private String secret; // expected X-Webhook-Secret header, every push is refused while empty
+        private String sweepInterval = "PT5M"; // polling becomes a safety-net sweep at this interval
+        private String pushRetention = "PT15M"; // how long pushed changes are remembered for the sweep, keep above sweep-interval
+        private String matchTolerance = "PT5S"; // how far a polled notification's updated may be from the pushed one
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getSecret() { return secret; }
+        public void setSecret(String secret) { this.secret = secret; }
+
+        public String getSweepInterval() { return sweepInterval; }
+        public void setSweepInterval(String sweepInterval) { this.sweepInterval = sweepInterval; }
+
+        public String getPushRetention() { return pushRetention; }
+        public void setPushRetention(String pushRetention) { this.pushRetention = pushRetention; }
+
+        public String getMatchTolerance() { return matchTolerance; }
+        public void setMatchTolerance(String matchTolerance) { this.matchTolerance = matchTolerance; }
+    }
 
+    public static class Paging {
+        private boolean enabled = true;
+        private int pageSize = 200;
+        private int concurrency = 3; // page requests in flight at once
+        private int overlap = 10; // items each page re-reads from the previous one, repeats are dropped
+        private int retries = 1; // retries per failed page
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getPageSize() { return pageSize; }
+        public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+
+        public int getConcurrency() { return concurrency; }
+        public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+
+        public int getOverlap() { return overlap; }
+        public void setOverlap(int overlap) { this.overlap = overlap; }
+
+        public int getRetries() { return retries; }
+        public void setRetries(int retries) { this.retries = retries; }
+    }
+
+    public static class Http {
+        private int maxIdleConnections = 5;
+        private String keepAlive = "PT5M";
+        private String connectTimeout = "PT10S";
+        private String readTimeout = "PT30S";
+        private String callTimeout = "PT0S"; // PT0S = no limit on the whole call
+        private int maxRequestsPerHost = 5;
+        private boolean http2 = true;
+        private boolean compression = true;
+
+        public int getMaxIdleConnections() { return maxIdleConnections; }
+        public void setMaxIdleConnections(int maxIdleConnections) { this.maxIdleConnections = maxIdleConnections; }
+
+        public String getKeepAlive() { return keepAlive; }
+        public void setKeepAlive(String keepAlive) { this.keepAlive = keepAlive; }
+
+        public String getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(String connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public String getReadTimeout() { return readTimeout; }
+        public void setReadTimeout(String readTimeout) { this.readTimeout = readTimeout; }
+
+        public String getCallTimeout() { return callTimeout; }
+        public void setCallTimeout(String callTimeout) { this.callTimeout = callTimeout; }
+
+        public int getMaxRequestsPerHost() { return maxRequestsPerHost; }
+        public void setMaxRequestsPerHost(int maxRequestsPerHost) { this.maxRequestsPerHost = maxRequestsPerHost; }
+
+        public boolean isHttp2() { return http2; }
+        public void setHttp2(boolean http2) { this.http2 = http2; }
+
+        public boolean isCompression() { return compression; }
+        public void setCompression(boolean compression) { this.compression = compression; }
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.interfaces.rest;
+
+import org.example.domain.port.MetricsSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    // Resolved per request: some sources are storage decorators only recognisable once instantiated
+    private final ObjectProvider<MetricsSource> sources;
+
+    public MetricsController(ObjectProvider<MetricsSource> sources) {
+        this.sources = sources;
+    }
+
+    @GetMapping
+    public Map<String, Map<String, Object>> metrics() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        sources.orderedStream().forEach(source -> result.put(source.metricsName(), source.metrics()));
+        return result;
+    }
+}
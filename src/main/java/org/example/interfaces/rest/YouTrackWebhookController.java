@@ -0,0 +1,44 @@
+package org.example.interfaces.rest;
+
+import org.example.application.service.YouTrackWebhookHandler;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/youtrack")
+public class YouTrackWebhookController {
+
+    private final YouTrackWebhookHandler webhookHandler;
+
+    public YouTrackWebhookController(YouTrackWebhookHandler webhookHandler) {
+        this.webhookHandler = webhookHandler;
+    }
+
+    @PostMapping("/webhook")
+    public ResponseEntity<String> webhook(@RequestHeader(name = "X-Webhook-Secret", required = false) String secret,
+                                          @RequestBody String payload) {
+        if (!webhookHandler.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("YouTrack webhook ingestion is disabled");
+        }
+        if (!webhookHandler.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid webhook secret");
+        }
+        try {
+            int sent = webhookHandler.processWebhook(payload);
+            return ResponseEntity.accepted().body("Delivered " + sent + " notification(s)");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            // Not delivered: a non-2xx status lets the workflow retry, polling picks it up otherwise
+            System.err.println("Error processing YouTrack webhook: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/webhook")
+    public String webhookGet() {
+        return webhookHandler.isEnabled() ? "YouTrack webhook endpoint is active" : "YouTrack webhook ingestion is disabled";
+    }
+}
@@ -0,0 +1,50 @@
+package org.example;
+
+import org.example.infrastructure.storage.CompactIdSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the primitive-packed notification ID set
+ */
+class CompactIdSetTest {
+
+    @Test
+    void test1_shouldBehaveLikeHashSetIncludingFallbackIds() {
+        String[] unusual = {"abc", "4-01", "-1", "4-", "4-1-2", "4-4294967295", "4-4294967296", "2147483648-1", "0-0"};
+        Random random = new Random(42);
+        CompactIdSet compact = new CompactIdSet();
+        Set<String> expected = new HashSet<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            String id = random.nextInt(20) == 0
+                    ? unusual[random.nextInt(unusual.length)]
+                    : random.nextInt(5) + "-" + random.nextInt(20_000);
+            if (random.nextInt(3) < 2) {
+                assertEquals(expected.add(id), compact.add(id), id);
+            } else {
+                assertEquals(expected.remove(id), compact.remove(id), id);
+            }
+        }
+
+        assertEquals(expected.size(), compact.size());
+        assertEquals(expected, new HashSet<>(compact));
+        assertEquals(expected, new CompactIdSet(compact));
+        assertTrue(compact.contains("4-4294967296") == expected.contains("4-4294967296"));
+    }
+
+    @Test
+    void test2_shouldUseFarLessMemoryThanStrings() {
+        CompactIdSet compact = new CompactIdSet();
+        for (int i = 0; i < 150_000; i++) {
+            compact.add("4-" + i);
+        }
+        // A HashSet<String> costs roughly 80 bytes per short ID
+        assertTrue(compact.estimatedBytes() / compact.size() <= 16, "bytes per ID: " + compact.estimatedBytes() / compact.size());
+    }
+}
@@ -1,25 +1,49 @@
 package org.example;
 
+import org.example.application.service.AdaptivePollingPolicy;
+import org.example.application.service.DeliveryPipeline;
 import org.example.application.service.Formatter;
+import org.example.application.service.NotificationRouter;
 import org.example.application.service.NotifyIssueService;
+import org.example.application.service.PushIngestionTracker;
+import org.example.application.service.SentNotificationRetentionJob;
+import org.example.application.service.YouTrackWebhookHandler;
 import org.example.domain.port.IssueTrackerPort;
+import org.example.domain.port.LeaderElectionPort;
 import org.example.domain.port.MessengerPort;
+import org.example.domain.port.MessageRejectedException;
 import org.example.domain.port.NotificationStoragePort;
 import org.example.domain.view.NotificationView;
 import org.example.infrastructure.scheduler.SchedulerProperties;
+import org.example.infrastructure.storage.StorageProperties;
+import org.example.infrastructure.telegram.RateLimitedMessenger;
+import org.example.infrastructure.telegram.TelegramClient;
+import org.example.infrastructure.telegram.TelegramProperties;
+import org.example.infrastructure.youtrack.YouTrackProperties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 /**
@@ -40,24 +64,34 @@ class CoreBusinessLogicTest {
     @Mock
     private SchedulerProperties schedulerProperties;
 
+    @Mock
+    private ObjectProvider<DeliveryPipeline> pipelineProvider;
+
+    @Mock
+    private ObjectProvider<LeaderElectionPort> leaderElectionProvider;
+
+    private YouTrackProperties youTrackProperties;
+
     private NotifyIssueService notifyIssueService;
+    private NotificationRouter router;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
-        SchedulerProperties.Pagination pagination = new SchedulerProperties.Pagination();
-        pagination.setEnabled(false);
-        pagination.setPageSize(1);
-        pagination.setDelayBetweenMessages("PT1S");
-
-        when(schedulerProperties.getPagination()).thenReturn(pagination);
+        youTrackProperties = new YouTrackProperties();
+        youTrackProperties.setBaseUrl("https://example.com");
+        router = new NotificationRouter(new TelegramProperties());
 
         notifyIssueService = new NotifyIssueService(
             issueTrackerPort,
             messengerPort,
             storagePort,
-            schedulerProperties
+            schedulerProperties,
+            new PushIngestionTracker(youTrackProperties),
+            router,
+            pipelineProvider,
+            leaderElectionProvider
         );
     }
 
@@ -68,8 +102,8 @@ class CoreBusinessLogicTest {
             createNotification("516-2", "BUG-2", "Test issue 2")
         );
 
-        when(storagePort.getAllSentIds()).thenReturn(Set.of("516-1"));
-        when(issueTrackerPort.fetchNotifications(anyInt())).thenReturn(allNotifications);
+        stubSentIds(Set.of("516-1"));
+        stubFetchedNotifications(allNotifications);
 
         notifyIssueService.sendAllToPm(10);
 
@@ -113,14 +147,16 @@ class CoreBusinessLogicTest {
             createNotification("516-2", "BUG-2", "Issue 2")
         );
 
-        when(storagePort.getAllSentIds()).thenReturn(Collections.emptySet());
-        when(issueTrackerPort.fetchNotifications(anyInt())).thenReturn(allNotifications);
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(allNotifications);
 
         notifyIssueService.sendAllToPm(10);
 
         verify(messengerPort, times(2)).sendToPm(anyString());
 
-        verify(storagePort, times(1)).markAsSent(anySet());
+        // Each notification is marked as sent as soon as it goes out
+        verify(storagePort).markAsSent(Set.of("516-1"));
+        verify(storagePort).markAsSent(Set.of("516-2"));
     }
 
     @Test
@@ -130,8 +166,8 @@ class CoreBusinessLogicTest {
             createNotification("516-2", "BUG-2", "Issue 2")
         );
 
-        when(storagePort.getAllSentIds()).thenReturn(Set.of("516-1", "516-2"));
-        when(issueTrackerPort.fetchNotifications(anyInt())).thenReturn(allNotifications);
+        stubSentIds(Set.of("516-1", "516-2"));
+        stubFetchedNotifications(allNotifications);
 
         notifyIssueService.sendAllToPm(10);
 
@@ -142,8 +178,8 @@ class CoreBusinessLogicTest {
 
     @Test
     void test5_shouldHandleEmptyNotificationsList() throws IOException {
-        when(storagePort.getAllSentIds()).thenReturn(Collections.emptySet());
-        when(issueTrackerPort.fetchNotifications(anyInt())).thenReturn(Collections.emptyList());
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(Collections.emptyList());
 
         notifyIssueService.sendAllToPm(10);
 
@@ -169,35 +205,627 @@ class CoreBusinessLogicTest {
     }
 
     @Test
-    void test7_shouldHandlePaginationWhenEnabled() throws IOException {
-        SchedulerProperties.Pagination pagination = new SchedulerProperties.Pagination();
-        pagination.setEnabled(true);
-        pagination.setPageSize(2);
-        pagination.setDelayBetweenMessages("PT1S");
+    void test7_shouldKeepGroupsWithinTheirPerMinuteLimit() throws IOException {
+        TelegramProperties telegramProperties = new TelegramProperties();
+        telegramProperties.getRateLimit().setPerChatPerSecond(100);
+        telegramProperties.getRateLimit().setPerChatBurst(100);
+        telegramProperties.getRateLimit().setPerGroupPerMinute(20);
+        telegramProperties.getRateLimit().setPerGroupBurst(5);
+        TelegramClient telegramClient = mock(TelegramClient.class);
+        FakeTicker ticker = new FakeTicker();
+        List<Long> sentAt = new ArrayList<>();
+        doAnswer(invocation -> sentAt.add(ticker.now)).when(telegramClient).sendToChat(eq("-100"), anyString());
+        RateLimitedMessenger messenger = new RateLimitedMessenger(telegramClient, telegramProperties, ticker);
+
+        for (int i = 0; i < 30; i++) {
+            messenger.sendToChat("-100", "group " + i);
+        }
+
+        // The burst of 5 goes out at once, the other 15 of the minute one every 4s
+        assertEquals(sentAt.get(0), sentAt.get(4));
+        assertEquals(4_000_000_000L, sentAt.get(5) - sentAt.get(4));
+        for (int i = 0; i + 20 < sentAt.size(); i++) {
+            assertTrue(sentAt.get(i + 20) - sentAt.get(i) >= 60_000_000_000L,
+                    "at most 20 sends in any minute, broken at send " + (i + 20));
+        }
+
+        ticker.sleeps.clear();
+        messenger.sendToChat("42", "private chat");
+        assertTrue(ticker.sleeps.isEmpty(), "private chats have no per-minute bucket");
+    }
 
-        when(schedulerProperties.getPagination()).thenReturn(pagination);
+    @Test
+    void test8_shouldPollFromPersistedCursorAndAdvanceIt() throws IOException {
+        NotificationView older = createNotification("516-1", "BUG-1", "Issue 1");
+        older.updated = "1700000001000";
+        NotificationView newer = createNotification("516-2", "BUG-2", "Issue 2");
+        newer.updated = "1700000002000";
 
-        notifyIssueService = new NotifyIssueService(
-            issueTrackerPort,
-            messengerPort,
-            storagePort,
-            schedulerProperties
+        when(storagePort.getLastSeenTimestamp()).thenReturn("1700000000000");
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(Arrays.asList(newer, older));
+
+        notifyIssueService.sendAllToPm(10);
+
+        verify(issueTrackerPort).streamNotificationsFromTimestamp(eq("1700000000000"), eq(10), any());
+        verify(storagePort).saveLastSeenTimestamp("1700000002000");
+    }
+    @Test
+    void test9_shouldFormatExtraProjectedFields() {
+        NotificationView notification = createNotification("516-1", "BUG-1", "Issue 1");
+        notification.fields = new LinkedHashMap<>();
+        notification.fields.put("State", "Submitted");
+        notification.fields.put("Type", "Bug");
+        notification.fields.put("Sprint", "");
+
+        String formattedMessage = Formatter.toTelegramMarkdown(notification);
+
+        assertTrue(formattedMessage.contains("Type: `Bug`"), "Should contain extra projected field");
+        assertFalse(formattedMessage.contains("Sprint"), "Blank fields should be skipped");
+        assertFalse(formattedMessage.contains("State:"), "Built-in fields are rendered by their own lines");
+    }
+    @Test
+    void test10_shouldBackOffWhenIdleAndSpeedUpOnBursts() {
+        SchedulerProperties properties = new SchedulerProperties();
+        properties.setFixedDelay("PT5S");
+        properties.setTop(100);
+        properties.getAdaptive().setEnabled(true);
+        properties.getAdaptive().setMinDelay("PT1S");
+        properties.getAdaptive().setMaxDelay("PT30S");
+
+        AdaptivePollingPolicy policy = new AdaptivePollingPolicy(properties, new YouTrackProperties());
+
+        policy.recordPoll(0, 0);
+        assertEquals(10, policy.nextDelay().toSeconds());
+        policy.recordPoll(1, 0); // only the notification at the cursor again, already sent
+        policy.recordPoll(0, 0);
+        assertEquals(30, policy.nextDelay().toSeconds(), "Idle back-off is capped at max-delay");
+
+        policy.recordPoll(100, 3);
+        assertEquals(1, policy.nextDelay().toSeconds(), "A full window polls again at min-delay");
+        assertEquals(200, policy.currentTop(), "A full window doubles top, even if most of it was sent before");
+
+        policy.recordPoll(10, 10);
+        assertEquals(100, policy.currentTop(), "Top shrinks back when the window is mostly empty");
+        assertEquals(10, policy.metrics().get("lastFetched"));
+
+        long before = policy.nextDelay().toMillis();
+        policy.recordDeferred();
+        assertEquals(before * 2, policy.nextDelay().toMillis(), "A poll deferred by full queues backs off");
+        assertEquals(100, policy.currentTop());
+        assertEquals(1L, policy.metrics().get("deferredPolls"));
+    }
+    @Test
+    void test11_shouldDeliverWebhookEventsAndNotResendThemFromPolling() throws IOException {
+        youTrackProperties.getWebhook().setEnabled(true);
+        YouTrackWebhookHandler webhookHandler = new YouTrackWebhookHandler(notifyIssueService, youTrackProperties);
+        stubSentIds(Collections.emptySet());
+        long changedAt = System.currentTimeMillis();
+
+        int sent = webhookHandler.processWebhook(
+            "{\"issueId\":\"DEMO-7\",\"summary\":\"Pushed\",\"state\":\"Open\",\"updated\":" + changedAt + "}");
+
+        assertEquals(1, sent);
+        ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
+        verify(messengerPort, times(1)).sendToPm(messageCaptor.capture());
+        assertTrue(messageCaptor.getValue().contains("DEMO\\-7"));
+        assertTrue(messageCaptor.getValue().contains("https://example.com/issue/DEMO-7"));
+
+        // The safety-net sweep later sees the YouTrack notification for the same change, stamped a little
+        // after the issue's updated time the workflow pushed, and one for a second edit of the issue a
+        // second later that the workflow never pushed
+        NotificationView polled = createNotification("516-9", "DEMO-7", "Pushed");
+        polled.updated = String.valueOf(changedAt + 40);
+        NotificationView laterEdit = createNotification("516-10", "DEMO-7", "Edited again");
+        laterEdit.updated = String.valueOf(changedAt + 1000);
+        stubFetchedNotifications(List.of(polled, laterEdit));
+
+        assertEquals(1, notifyIssueService.sendAllToPm(10));
+        verify(messengerPort, times(2)).sendToPm(messageCaptor.capture());
+        assertTrue(messageCaptor.getValue().contains("Edited again"));
+        verify(storagePort).markAsSent(Set.of("516-9"));
+    }
+
+    @Test
+    void test12_shouldPurgeExpiredNotificationsInBatches() throws InterruptedException {
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.getCleanup().setDaysToKeep(7);
+        storageProperties.getCleanup().setBatchSize(100);
+        storageProperties.getCleanup().setBatchPause("PT0S");
+        when(storagePort.deleteSentBefore(any(LocalDateTime.class), eq(100)))
+            .thenReturn(idSet("a", 100), idSet("b", 100), idSet("c", 42));
+
+        SchedulerProperties.Cards cards = new SchedulerProperties.Cards();
+        cards.setEditWindow("PT2H");
+        when(schedulerProperties.getCards()).thenReturn(cards);
+        when(storagePort.deleteCardsBefore(any(LocalDateTime.class))).thenReturn(3);
+        when(storagePort.deleteParkedBefore(any(LocalDateTime.class))).thenReturn(2);
+        SentNotificationRetentionJob job = new SentNotificationRetentionJob(storagePort, storageProperties,
+            schedulerProperties);
+
+        assertEquals(242, job.runOnce());
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(storagePort, times(3)).deleteSentBefore(cutoff.capture(), eq(100));
+        assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusDays(6)));
+        assertEquals(242L, job.metrics().get("totalRemoved"));
+
+        // Parked notifications are kept just as long as sent records
+        verify(storagePort).deleteParkedBefore(cutoff.getValue());
+        assertEquals(2L, job.metrics().get("totalParkedRemoved"));
+
+        // Cards past the edit window go in the same run
+        ArgumentCaptor<LocalDateTime> cardCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(storagePort).deleteCardsBefore(cardCutoff.capture());
+        assertTrue(cardCutoff.getValue().isBefore(LocalDateTime.now().minusMinutes(119)));
+        assertTrue(cardCutoff.getValue().isAfter(LocalDateTime.now().minusMinutes(121)));
+        assertEquals(3L, job.metrics().get("totalCardsRemoved"));
+    }
+
+    @Test
+    void test13_shouldResumeFromOutboxAfterPartialFailure() throws IOException {
+        List<NotificationView> batch = Arrays.asList(
+            createNotification("516-1", "BUG-1", "Issue 1"),
+            createNotification("516-2", "BUG-2", "Issue 2"),
+            createNotification("516-3", "BUG-3", "Issue 3")
         );
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(batch);
+        doNothing().doThrow(new IOException("Telegram API error: HTTP code 502"))
+            .when(messengerPort).sendToPm(anyString());
+
+        assertThrows(IOException.class, () -> notifyIssueService.sendAllToPm(10));
+        verify(storagePort).enqueuePending(batch);
+        verify(storagePort).markAsSent(Set.of("516-1"));
+        verify(storagePort, never()).markAsSent(Set.of("516-2"));
+
+        // Next tick: the outbox still holds the two unsent ones, the first is already marked as sent
+        reset(messengerPort);
+        Set<String> sentIds = new HashSet<>(Set.of("516-1"));
+        stubSentIds(sentIds);
+        doAnswer(invocation -> sentIds.addAll(invocation.getArgument(0))).when(storagePort).markAsSent(anySet());
+        when(storagePort.getPending()).thenReturn(batch);
+        stubFetchedNotifications(batch);
+
+        assertEquals(2, notifyIssueService.sendAllToPm(10));
+        verify(messengerPort, times(2)).sendToPm(anyString());
+        verify(storagePort).markAsSent(Set.of("516-2"));
+        verify(storagePort).markAsSent(Set.of("516-3"));
+    }
 
-        List<NotificationView> allNotifications = Arrays.asList(
+    @Test
+    void test14_shouldPaceEachChatWithoutHoldingUpOthers() throws IOException {
+        TelegramProperties telegramProperties = new TelegramProperties();
+        telegramProperties.setPmChatId("42");
+        telegramProperties.getRateLimit().setPerChatPerSecond(10);
+        telegramProperties.getRateLimit().setPerChatBurst(1);
+        TelegramClient telegramClient = mock(TelegramClient.class);
+        FakeTicker ticker = new FakeTicker();
+        RateLimitedMessenger messenger = new RateLimitedMessenger(telegramClient, telegramProperties, ticker);
+
+        for (int i = 0; i < 6; i++) {
+            messenger.sendToPm("pm " + i);
+        }
+        assertEquals(List.of(100_000_000L, 100_000_000L, 100_000_000L, 100_000_000L, 100_000_000L), ticker.sleeps,
+                "one wait of 100ms before each send after the burst");
+
+        ticker.sleeps.clear();
+        messenger.sendToChat("7", "other chat");
+        assertTrue(ticker.sleeps.isEmpty(), "another chat has its own bucket");
+        verify(telegramClient, times(6)).sendToPm(anyString());
+        assertEquals(5L, messenger.metrics().get("throttledSends"));
+    }
+
+    @Test
+    void test15_shouldPackNotificationsIntoDigests() throws IOException {
+        SchedulerProperties.Digest digest = new SchedulerProperties.Digest();
+        digest.setEnabled(true);
+        digest.setMaxCount(2);
+        digest.setMaxWait("PT0S");
+        when(schedulerProperties.getDigest()).thenReturn(digest);
+        List<NotificationView> batch = Arrays.asList(
+            createNotification("516-1", "BUG-1", "Issue 1"),
+            createNotification("516-2", "BUG-2", "Issue 2"),
+            createNotification("516-3", "BUG-3", "Issue 3"),
+            createNotification("516-4", "BUG-4", "Issue 4"),
+            createNotification("516-5", "BUG-5", "Issue 5")
+        );
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(batch);
+
+        assertEquals(5, notifyIssueService.sendAllToPm(10));
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(messengerPort, times(3)).sendToPm(messages.capture());
+        assertTrue(messages.getAllValues().get(0).contains("Issue 1"));
+        assertTrue(messages.getAllValues().get(0).contains("Issue 2"));
+        verify(storagePort).markAsSent(Set.of("516-1", "516-2"));
+        verify(storagePort).markAsSent(Set.of("516-5"));
+
+        // An incomplete digest waits in the outbox until max-wait has passed
+        reset(messengerPort);
+        digest.setMaxWait("PT1H");
+        stubFetchedNotifications(batch.subList(0, 3));
+
+        assertEquals(2, notifyIssueService.sendAllToPm(10));
+        verify(messengerPort, times(1)).sendToPm(anyString());
+        verify(storagePort, never()).markAsSent(Set.of("516-3"));
+        assertNotNull(notifyIssueService.timeUntilHeldDue());
+    }
+
+    @Test
+    void test16_shouldLeaveOverflowInTheOutboxWhenDeliveryQueueIsFull() throws Exception {
+        SchedulerProperties.Pipeline pipelineProperties = new SchedulerProperties.Pipeline();
+        pipelineProperties.setQueueCapacity(2);
+        when(schedulerProperties.getPipeline()).thenReturn(pipelineProperties);
+        DeliveryPipeline pipeline = new DeliveryPipeline(notifyIssueService, router, schedulerProperties);
+        when(pipelineProvider.getIfAvailable()).thenReturn(pipeline);
+
+        List<NotificationView> batch = Arrays.asList(
+            createNotification("516-1", "BUG-1", "Issue 1"),
+            createNotification("516-2", "BUG-2", "Issue 2"),
+            createNotification("516-3", "BUG-3", "Issue 3"),
+            createNotification("516-4", "BUG-4", "Issue 4"),
+            createNotification("516-5", "BUG-5", "Issue 5")
+        );
+        Set<String> sentIds = ConcurrentHashMap.newKeySet();
+        stubSentIds(sentIds);
+        doAnswer(invocation -> sentIds.addAll(invocation.getArgument(0))).when(storagePort).markAsSent(anySet());
+        stubFetchedNotifications(batch);
+
+        // No worker drains the queue yet: two fit, the poll returns instead of waiting for room
+        assertEquals(2, notifyIssueService.sendAllToPm(10));
+        assertEquals(2, pipeline.metrics().get("queueDepth"));
+        assertEquals(3L, pipeline.metrics().get("overflowed"));
+        verify(storagePort).enqueuePending(batch);
+
+        CountDownLatch telegramBack = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            telegramBack.await();
+            return null;
+        }).when(messengerPort).sendToPm(anyString());
+        pipeline.start();
+        try {
+            // One is stuck in the send, so the next poll finds room for one more of the outbox. The queues
+            // overflowed, so it does not fetch from YouTrack and the outbox does not grow.
+            verify(messengerPort, timeout(2000)).sendToPm(contains("Issue 1"));
+            when(storagePort.getPending()).thenReturn(batch);
+            assertEquals(new NotifyIssueService.PollResult(0, 0, 1, true), notifyIssueService.poll(10));
+            assertEquals(2, pipeline.metrics().get("queueDepth"));
+
+            telegramBack.countDown();
+            verify(storagePort, timeout(2000)).markAsSent(Set.of("516-3"));
+            verify(messengerPort, after(200).times(3)).sendToPm(anyString());
+
+            assertEquals(new NotifyIssueService.PollResult(0, 0, 2, true), notifyIssueService.poll(10));
+            verify(storagePort, timeout(2000)).markAsSent(Set.of("516-5"));
+            verify(issueTrackerPort, times(1)).streamNotificationsFromTimestamp(any(), anyInt(), any());
+
+            // The whole outbox fit last time, so fetching resumes
+            assertEquals(new NotifyIssueService.PollResult(5, 0, 0, false), notifyIssueService.poll(10));
+            verify(issueTrackerPort, times(2)).streamNotificationsFromTimestamp(any(), anyInt(), any());
+            InOrder inOrder = inOrder(messengerPort);
+            for (int i = 1; i <= 5; i++) {
+                inOrder.verify(messengerPort).sendToPm(contains("Issue " + i));
+            }
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void test17_shouldRouteToChatsAndDrainThemInParallel() throws Exception {
+        TelegramProperties telegramProperties = new TelegramProperties();
+        telegramProperties.getRouting().setEnabled(true);
+        TelegramProperties.Rule critical = new TelegramProperties.Rule();
+        critical.setChatId("-100911");
+        critical.setPriorities(List.of("Critical"));
+        TelegramProperties.Rule ops = new TelegramProperties.Rule();
+        ops.setChatId("-100200");
+        ops.setProjects(List.of("OPS"));
+        telegramProperties.getRouting().setRules(List.of(critical, ops));
+        router = new NotificationRouter(telegramProperties);
+
+        NotificationView outage = createNotification("516-1", "OPS-1", "Outage");
+        outage.priority = "critical";
+        NotificationView deploy = createNotification("516-2", "OPS-2", "Deploy");
+        NotificationView typo = createNotification("516-3", "DOC-3", "Typo");
+        assertEquals("-100911", router.route(outage));
+        assertEquals("-100200", router.route(deploy));
+        assertEquals(NotificationRouter.PM, router.route(typo));
+
+        SchedulerProperties.Pipeline pipelineProperties = new SchedulerProperties.Pipeline();
+        when(schedulerProperties.getPipeline()).thenReturn(pipelineProperties);
+        notifyIssueService = new NotifyIssueService(issueTrackerPort, messengerPort, storagePort,
+            schedulerProperties, new PushIngestionTracker(youTrackProperties), router, pipelineProvider,
+            leaderElectionProvider);
+        DeliveryPipeline pipeline = new DeliveryPipeline(notifyIssueService, router, schedulerProperties);
+        when(pipelineProvider.getIfAvailable()).thenReturn(pipeline);
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(Arrays.asList(outage, deploy, typo));
+
+        // The ops chat hangs; the other chats have their own queues and go out regardless
+        CountDownLatch opsBack = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            opsBack.await();
+            return null;
+        }).when(messengerPort).sendToChat(eq("-100200"), anyString());
+
+        pipeline.start();
+        try {
+            assertEquals(3, notifyIssueService.sendAllToPm(10));
+            verify(messengerPort, timeout(2000)).sendToChat(eq("-100911"), contains("Outage"));
+            verify(messengerPort, timeout(2000)).sendToPm(contains("Typo"));
+            verify(storagePort, never()).markAsSent(Set.of("516-2"));
+
+            opsBack.countDown();
+            verify(storagePort, timeout(2000)).markAsSent(Set.of("516-2"));
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void test18_shouldMergeBurstOnOneIssueAfterDebounceWindow() throws IOException {
+        SchedulerProperties.Debounce debounce = new SchedulerProperties.Debounce();
+        debounce.setEnabled(true);
+        debounce.setWindow("PT1H");
+        when(schedulerProperties.getDebounce()).thenReturn(debounce);
+
+        NotificationView moved = createNotification("516-1", "BUG-1", "Login fails");
+        moved.updated = "1000";
+        moved.status = "In Progress";
+        NotificationView commented = createNotification("516-2", "BUG-1", "Login fails");
+        commented.updated = "2000";
+        commented.status = "In Progress";
+        commented.comment = "Reproduced on staging";
+        NotificationView fixed = createNotification("516-3", "BUG-1", "Login fails");
+        fixed.updated = "3000";
+        fixed.status = "Fixed";
+        fixed.comment = "Patched the session check";
+        NotificationView other = createNotification("516-4", "BUG-2", "Typo");
+        List<NotificationView> burst = Arrays.asList(moved, commented, fixed, other);
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(burst);
+
+        // Inside the window nothing goes out, everything waits in the outbox. The poll still found four
+        // new notifications, so the polling policy does not take it for an idle one.
+        assertEquals(new NotifyIssueService.PollResult(4, 4, 0, false), notifyIssueService.poll(10));
+        verify(messengerPort, never()).sendToPm(anyString());
+        assertNotNull(notifyIssueService.timeUntilHeldDue());
+
+        debounce.setWindow("PT0S");
+        when(storagePort.getPending()).thenReturn(burst);
+        stubFetchedNotifications(Collections.emptyList());
+
+        // Resumed from the outbox, not fetched: two go out from an empty window
+        assertEquals(new NotifyIssueService.PollResult(0, 0, 2, false), notifyIssueService.poll(10));
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(messengerPort, times(2)).sendToPm(messages.capture());
+        String merged = messages.getAllValues().get(0);
+        assertTrue(merged.contains("Fixed"));
+        assertFalse(merged.contains("In Progress"));
+        assertTrue(merged.contains("Reproduced on staging"));
+        assertTrue(merged.indexOf("Reproduced on staging") < merged.indexOf("Patched the session check"));
+        verify(storagePort).markAsSent(Set.of("516-3", "516-1", "516-2"));
+        verify(storagePort).markAsSent(Set.of("516-4"));
+    }
+
+    @Test
+    void test19_shouldEditIssueCardInPlaceAndFallBackToNewCard() throws IOException {
+        SchedulerProperties.Cards cards = new SchedulerProperties.Cards();
+        cards.setEnabled(true);
+        when(schedulerProperties.getCards()).thenReturn(cards);
+        stubSentIds(Collections.emptySet());
+        when(messengerPort.sendCard(any(), anyString())).thenReturn(77L, 78L);
+
+        // First update on the issue: a new card, remembered for the PM chat
+        stubFetchedNotifications(List.of(createNotification("516-1", "BUG-1", "Opened")));
+        assertEquals(1, notifyIssueService.sendAllToPm(10));
+        verify(messengerPort).sendCard(isNull(), contains("Opened"));
+        verify(storagePort).saveCard("BUG-1", NotificationRouter.PM, 77L);
+
+        // Next update inside the window edits that card instead of sending a message
+        when(storagePort.findCard(eq("BUG-1"), eq(NotificationRouter.PM), any())).thenReturn(77L);
+        when(messengerPort.editCard(isNull(), eq(77L), anyString())).thenReturn(true);
+        stubFetchedNotifications(List.of(createNotification("516-2", "BUG-1", "Assigned")));
+        assertEquals(1, notifyIssueService.sendAllToPm(10));
+        verify(messengerPort).editCard(isNull(), eq(77L), contains("Assigned"));
+        verify(messengerPort, times(1)).sendCard(any(), anyString());
+        verify(storagePort).markAsSent(Set.of("516-2"));
+
+        // Telegram refuses the edit (card deleted): a new card takes its place
+        when(messengerPort.editCard(isNull(), eq(77L), anyString())).thenReturn(false);
+        stubFetchedNotifications(List.of(createNotification("516-3", "BUG-1", "Fixed")));
+        assertEquals(1, notifyIssueService.sendAllToPm(10));
+        verify(messengerPort).sendCard(isNull(), contains("Fixed"));
+        verify(storagePort).saveCard("BUG-1", NotificationRouter.PM, 78L);
+        verify(messengerPort, never()).sendToPm(anyString());
+    }
+
+    @Test
+    void test20_shouldSendNotificationListedTwiceInOneWindowOnce() throws IOException {
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(List.of(
+            createNotification("516-1", "BUG-1", "Issue 1"),
+            createNotification("516-2", "BUG-2", "Issue 2"),
+            createNotification("516-1", "BUG-1", "Issue 1")));
+
+        assertEquals(2, notifyIssueService.sendAllToPm(10));
+
+        verify(messengerPort, times(2)).sendToPm(anyString());
+        verify(storagePort, times(1)).markAsSent(Set.of("516-1"));
+        verify(storagePort).enqueuePending(argThat(batch -> batch.size() == 2));
+    }
+
+    @Test
+    void test21_shouldParkRejectedNotificationAfterMaxAttempts() throws IOException {
+        SchedulerProperties.Outbox outbox = new SchedulerProperties.Outbox();
+        outbox.setMaxAttempts(3);
+        when(schedulerProperties.getOutbox()).thenReturn(outbox);
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(List.of(
+            createNotification("516-1", "BUG-1", "Issue 1"),
+            createNotification("516-2", "BUG-2", "Issue 2")));
+        doThrow(new MessageRejectedException("Telegram API error: HTTP code 400", null))
+            .doNothing()
+            .when(messengerPort).sendToPm(anyString());
+
+        // Below the limit the failure still stops the tick and the entry stays pending
+        when(storagePort.recordFailedAttempt(anyCollection())).thenReturn(2);
+        assertThrows(MessageRejectedException.class, () -> notifyIssueService.sendAllToPm(10));
+        verify(storagePort).recordFailedAttempt(Set.of("516-1"));
+        verify(storagePort, never()).park(anyCollection());
+
+        // At the limit the rejected entry is parked and the rest of the batch goes out
+        reset(messengerPort);
+        doThrow(new MessageRejectedException("Telegram API error: HTTP code 400", null))
+            .doNothing()
+            .when(messengerPort).sendToPm(anyString());
+        when(storagePort.recordFailedAttempt(anyCollection())).thenReturn(3);
+        assertEquals(1, notifyIssueService.sendAllToPm(10));
+        verify(storagePort).park(Set.of("516-1"));
+        verify(storagePort).markAsSent(Set.of("516-2"));
+        verify(storagePort, never()).markAsSent(Set.of("516-1"));
+
+        // A transient failure is never parked, however often it happened
+        reset(messengerPort);
+        doThrow(new IOException("Telegram API error: HTTP code 503")).when(messengerPort).sendToPm(anyString());
+        when(storagePort.recordFailedAttempt(anyCollection())).thenReturn(10);
+        assertThrows(IOException.class, () -> notifyIssueService.sendAllToPm(10));
+        verify(storagePort, times(1)).park(anyCollection());
+    }
+
+    @Test
+    void test22_shouldStopSendingOnceTheLeaseIsLost() throws IOException {
+        LeaderElectionPort leaderElection = mock(LeaderElectionPort.class);
+        when(leaderElection.isLeader()).thenReturn(true, true, false);
+        when(leaderElectionProvider.getIfAvailable()).thenReturn(leaderElection);
+        notifyIssueService = new NotifyIssueService(issueTrackerPort, messengerPort, storagePort,
+            schedulerProperties, new PushIngestionTracker(youTrackProperties), router, pipelineProvider,
+            leaderElectionProvider);
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(List.of(
+            createNotification("516-1", "BUG-1", "Issue 1"),
+            createNotification("516-2", "BUG-2", "Issue 2"),
+            createNotification("516-3", "BUG-3", "Issue 3")));
+
+        assertEquals(2, notifyIssueService.sendAllToPm(10));
+
+        // The third stays in the outbox for whichever replica holds the lease now
+        verify(messengerPort, times(2)).sendToPm(anyString());
+        verify(storagePort, never()).markAsSent(Set.of("516-3"));
+        verify(storagePort, never()).recordFailedAttempt(anyCollection());
+    }
+
+    @Test
+    void test23_shouldStallTheChatAfterAFailedSendAndResumeInOrder() throws Exception {
+        when(schedulerProperties.getPipeline()).thenReturn(new SchedulerProperties.Pipeline());
+        DeliveryPipeline pipeline = new DeliveryPipeline(notifyIssueService, router, schedulerProperties);
+        when(pipelineProvider.getIfAvailable()).thenReturn(pipeline);
+
+        List<NotificationView> batch = Arrays.asList(
             createNotification("516-1", "BUG-1", "Issue 1"),
             createNotification("516-2", "BUG-2", "Issue 2"),
             createNotification("516-3", "BUG-3", "Issue 3")
         );
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(batch);
+        CountDownLatch telegramBack = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() == 1) {
+                telegramBack.await();
+                throw new IOException("Telegram API error: HTTP 503");
+            }
+            return null;
+        }).when(messengerPort).sendToPm(anyString());
+
+        pipeline.start();
+        try {
+            assertEquals(3, notifyIssueService.sendAllToPm(10));
+            telegramBack.countDown();
+
+            // The two queued behind the failed one are not sent out of order
+            verify(messengerPort, after(300).times(1)).sendToPm(anyString());
+            assertEquals(0, pipeline.metrics().get("queueDepth"));
+            assertEquals(1L, pipeline.metrics().get("failedBatches"));
+
+            // Until the next poll, a push for the chat waits in the outbox as well
+            NotificationView pushed = createNotification("push-1", "BUG-4", "Issue 4");
+            pushed.updated = "1700000000000";
+            assertEquals(0, notifyIssueService.deliverPushed(List.of(pushed)));
+
+            // The next poll resubmits the outbox, oldest first
+            when(storagePort.getPending()).thenReturn(batch);
+            assertThrows(IOException.class, () -> notifyIssueService.sendAllToPm(10), "reports the earlier failure");
+            verify(storagePort, timeout(2000)).markAsSent(Set.of("516-3"));
+            InOrder inOrder = inOrder(messengerPort);
+            inOrder.verify(messengerPort, times(2)).sendToPm(contains("Issue 1"));
+            inOrder.verify(messengerPort).sendToPm(contains("Issue 2"));
+            inOrder.verify(messengerPort).sendToPm(contains("Issue 3"));
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void test24_shouldStartTheDigestWaitWhenTheDebounceReleases() throws Exception {
+        SchedulerProperties.Debounce debounce = new SchedulerProperties.Debounce();
+        debounce.setEnabled(true);
+        debounce.setWindow("PT1H");
+        when(schedulerProperties.getDebounce()).thenReturn(debounce);
+        SchedulerProperties.Digest digest = new SchedulerProperties.Digest();
+        digest.setEnabled(true);
+        digest.setMaxCount(10);
+        digest.setMaxWait("PT0.02S");
+        when(schedulerProperties.getDigest()).thenReturn(digest);
+        List<NotificationView> batch = Arrays.asList(
+            createNotification("516-1", "BUG-1", "Issue 1"),
+            createNotification("516-2", "BUG-2", "Issue 2"));
+        stubSentIds(Collections.emptySet());
+        stubFetchedNotifications(batch);
+
+        assertEquals(0, notifyIssueService.sendAllToPm(10));
+        Thread.sleep(50); // held by the debounce for longer than the digest max-wait
+
+        // Released by the debounce just now: the digest still gets its full max-wait to fill up
+        debounce.setWindow("PT0S");
+        when(storagePort.getPending()).thenReturn(batch);
+        stubFetchedNotifications(Collections.emptyList());
+        assertEquals(0, notifyIssueService.sendAllToPm(10));
+        verify(messengerPort, never()).sendToPm(anyString());
 
-        when(storagePort.getAllSentIds()).thenReturn(Collections.emptySet());
-        when(issueTrackerPort.fetchNotifications(anyInt())).thenReturn(allNotifications);
+        digest.setMaxWait("PT0S");
+        assertEquals(2, notifyIssueService.sendAllToPm(10));
+        verify(messengerPort, times(1)).sendToPm(anyString());
+        verify(storagePort).markAsSent(Set.of("516-1", "516-2"));
+    }
 
-        notifyIssueService.sendAllToPm(10);
+    private static Set<String> idSet(String prefix, int count) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(prefix + "-" + i);
+        }
+        return ids;
+    }
 
-        verify(messengerPort, times(3)).sendToPm(anyString());
+    private void stubSentIds(Set<String> sentIds) {
+        when(storagePort.filterUnsent(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            Set<String> unsent = new LinkedHashSet<>(ids);
+            unsent.removeAll(sentIds);
+            return unsent;
+        });
     }
 
+    private void stubFetchedNotifications(List<NotificationView> notifications) throws IOException {
+        doAnswer(invocation -> {
+            IssueTrackerPort.NotificationConsumer consumer = invocation.getArgument(2);
+            for (NotificationView n : notifications) {
+                consumer.accept(n);
+            }
+            return null;
+        }).when(issueTrackerPort).streamNotificationsFromTimestamp(any(), anyInt(), any());
+    }
 
     private NotificationView createNotification(String id, String issueId, String title) {
         NotificationView notification = new NotificationView();
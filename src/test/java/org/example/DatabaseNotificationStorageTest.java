@@ -0,0 +1,221 @@
+package org.example;
+
+import org.example.app.Application;
+import org.example.domain.view.NotificationView;
+import org.example.infrastructure.storage.DatabaseNotificationStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the database storage backend's real SQL against an in-memory H2 database
+ */
+class DatabaseNotificationStorageTest {
+
+    private final String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private ConfigurableApplicationContext context;
+    private DatabaseNotificationStorage storage;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        start();
+    }
+
+    private void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + url,
+                        "spring.jpa.hibernate.ddl-auto=update", // keep the tables across a restart
+                        "scheduler.initial-delay=PT1H", // never actually poll YouTrack here
+                        "storage.cleanup.enabled=false",
+                        "storage.query-chunk-size=3",
+                        "storage.write-batch-size=4")
+                .run();
+        storage = context.getBean(DatabaseNotificationStorage.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void test1_shouldFilterUnsentAcrossSeveralQueryChunks() {
+        storage.markAsSent(Set.of("516-1", "516-4", "516-5", "516-9"));
+
+        // 10 IDs are looked up in four IN queries of at most 3
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            candidates.add("516-" + i);
+        }
+        assertEquals(List.of("516-0", "516-2", "516-3", "516-6", "516-7", "516-8"),
+                List.copyOf(storage.filterUnsent(candidates)));
+        assertTrue(storage.filterUnsent(List.of()).isEmpty());
+        assertEquals(Set.of("516-1", "516-4", "516-5", "516-9"), Set.copyOf(storage.getAllSentIds()));
+    }
+
+    @Test
+    void test2_shouldDeleteOldestRowsOneBoundedBatchAtATime() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            insert("old-" + i, now.minusDays(10 - i));
+        }
+        insert("recent", now.minusHours(1));
+
+        LocalDateTime cutoff = now.minusDays(1);
+        assertEquals(Set.of("old-0", "old-1"), storage.deleteSentBefore(cutoff, 2), "the oldest rows go first");
+        assertEquals(Set.of("old-2", "old-3", "old-4", "recent"), Set.copyOf(storage.getAllSentIds()));
+        assertEquals(Set.of("old-2", "old-3"), storage.deleteSentBefore(cutoff, 2));
+        assertEquals(Set.of("old-4"), storage.deleteSentBefore(cutoff, 2));
+        assertTrue(storage.deleteSentBefore(cutoff, 2).isEmpty());
+        assertEquals(Set.of("recent"), Set.copyOf(storage.getAllSentIds()));
+    }
+
+    @Test
+    void test3_shouldBackfillLegacyRowsInBatches() {
+        for (int i = 0; i < 5; i++) {
+            insert("legacy-" + i, null);
+        }
+        insert("stamped", LocalDateTime.now().minusDays(30));
+
+        assertEquals(5, storage.backfillSentAt(2));
+        assertEquals(0, (int) jdbc.queryForObject("SELECT COUNT(*) FROM sent_notifications WHERE sent_at IS NULL", Integer.class));
+        assertEquals(0, storage.backfillSentAt(2));
+
+        // Stamped rows age out from now, only the row with a real old sent_at is purged
+        assertEquals(Set.of("stamped"), storage.deleteSentBefore(LocalDateTime.now().minusDays(1), 100));
+        assertEquals(5, storage.getAllSentIds().size());
+    }
+
+    @Test
+    void test4_shouldKeepTheOriginalSentAtWhenMarkedAgain() {
+        LocalDateTime firstSent = LocalDateTime.now().minusDays(3).withNano(0);
+        insert("516-1", firstSent);
+
+        // 10 IDs over batches of 4, one of them already stored
+        Set<String> ids = new LinkedHashSet<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add("516-" + i);
+        }
+        storage.markAsSent(ids);
+        storage.markAsSent(Set.of("516-1"));
+
+        assertEquals(ids, Set.copyOf(storage.getAllSentIds()));
+        assertEquals(Timestamp.valueOf(firstSent), sentAt("516-1"), "re-marking must not reset sent_at");
+        assertTrue(sentAt("516-2").after(Timestamp.valueOf(firstSent.plusDays(2))));
+    }
+
+    @Test
+    void test5_shouldKeepTheOutboxWithAttemptsAndParkedRowsAcrossARestart() {
+        List<NotificationView> views = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            views.add(view("516-" + i, "content " + i));
+        }
+        storage.enqueuePending(views);
+        storage.enqueuePending(List.of(view("516-0", "again")));
+        assertEquals(List.of("516-0", "516-1", "516-2", "516-3", "516-4"), ids(storage.getPending()),
+                "enqueue order, no duplicates");
+
+        storage.markAsSent(Set.of("516-1"));
+        assertEquals(List.of("516-0", "516-2", "516-3", "516-4"), ids(storage.getPending()));
+
+        // Five IDs over query chunks of 3, one of them no longer pending
+        assertEquals(1, storage.recordFailedAttempt(List.of("516-0", "516-1", "516-2", "516-3", "516-4")));
+        assertEquals(2, storage.recordFailedAttempt(List.of("516-3")));
+        assertEquals(0, storage.recordFailedAttempt(List.of("516-1")));
+        storage.park(List.of("516-3"));
+        assertEquals(List.of("516-0", "516-2", "516-4"), ids(storage.getPending()));
+
+        context.close();
+        start();
+
+        List<NotificationView> pending = storage.getPending();
+        assertEquals(List.of("516-0", "516-2", "516-4"), ids(pending));
+        assertEquals("content 0", pending.get(0).content);
+        assertEquals(3, storage.recordFailedAttempt(List.of("516-3")), "the parked row keeps its attempts");
+        storage.markAsSent(Set.of("516-0", "516-2", "516-3", "516-4"));
+        assertTrue(storage.getPending().isEmpty());
+        assertEquals(0, (int) jdbc.queryForObject("SELECT COUNT(*) FROM pending_notifications", Integer.class));
+    }
+
+    @Test
+    void test6_shouldKeepOneCardPerIssueAndChatAndDropOldOnes() {
+        storage.saveCard("BUG-1", "42", 10);
+        storage.saveCard("BUG-1", "42", 11);
+        storage.saveCard("BUG-1", "-100", 20);
+        storage.saveCard("BUG-2", "42", 30);
+        LocalDateTime hourAgo = LocalDateTime.now().minusHours(1);
+        assertEquals(Long.valueOf(11), storage.findCard("BUG-1", "42", hourAgo), "the latest card wins");
+        assertEquals(Long.valueOf(20), storage.findCard("BUG-1", "-100", hourAgo), "one card per chat");
+        assertNull(storage.findCard("BUG-3", "42", hourAgo));
+        assertNull(storage.findCard("BUG-1", "42", LocalDateTime.now().plusMinutes(1)), "past the edit window");
+        assertEquals(3, (int) jdbc.queryForObject("SELECT COUNT(*) FROM issue_cards", Integer.class));
+
+        jdbc.update("UPDATE issue_cards SET sent_at = ? WHERE issue_id = 'BUG-1'",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(3)));
+        assertNull(storage.findCard("BUG-1", "42", hourAgo));
+
+        assertEquals(2, storage.deleteCardsBefore(LocalDateTime.now().minusHours(2)));
+        assertEquals(0, storage.deleteCardsBefore(LocalDateTime.now().minusHours(2)));
+        assertEquals(Long.valueOf(30), storage.findCard("BUG-2", "42", hourAgo));
+        assertEquals(1, (int) jdbc.queryForObject("SELECT COUNT(*) FROM issue_cards", Integer.class));
+
+        // A new card for an evicted issue starts a fresh row
+        storage.saveCard("BUG-1", "42", 12);
+        assertEquals(Long.valueOf(12), storage.findCard("BUG-1", "42", hourAgo));
+    }
+
+    @Test
+    void test7_shouldDropOnlyParkedRowsPastTheCutoff() {
+        storage.enqueuePending(List.of(view("516-1", "one"), view("516-2", "two"), view("516-3", "three")));
+        storage.park(List.of("516-1", "516-2"));
+        jdbc.update("UPDATE pending_notifications SET parked_at = ? WHERE notification_id = '516-1'",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(10)));
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(7);
+        assertEquals(1, storage.deleteParkedBefore(cutoff));
+        assertEquals(0, storage.deleteParkedBefore(cutoff));
+        assertEquals(List.of("516-3"), ids(storage.getPending()), "rows still retried are never dropped");
+        assertEquals(2, (int) jdbc.queryForObject("SELECT COUNT(*) FROM pending_notifications", Integer.class));
+
+        assertEquals(1, storage.deleteParkedBefore(LocalDateTime.now().plusMinutes(1)));
+        assertEquals(List.of("516-3"), ids(storage.getPending()));
+    }
+
+    private static NotificationView view(String id, String content) {
+        NotificationView view = new NotificationView();
+        view.id = id;
+        view.content = content;
+        return view;
+    }
+
+    private static List<String> ids(List<NotificationView> views) {
+        return views.stream().map(v -> v.id).toList();
+    }
+
+    private Timestamp sentAt(String id) {
+        return jdbc.queryForObject("SELECT sent_at FROM sent_notifications WHERE notification_id = ?", Timestamp.class, id);
+    }
+
+    private void insert(String id, LocalDateTime sentAt) {
+        jdbc.update("INSERT INTO sent_notifications (notification_id, sent_at) VALUES (?, ?)",
+                id, sentAt == null ? null : Timestamp.valueOf(sentAt));
+    }
+}
@@ -0,0 +1,26 @@
+package org.example;
+
+import org.example.infrastructure.telegram.Ticker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A clock that only moves when something sleeps on it
+ */
+class FakeTicker implements Ticker {
+
+    long now = 1_000_000_000L;
+    final List<Long> sleeps = new ArrayList<>();
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public void sleep(long nanos) {
+        sleeps.add(nanos);
+        now += nanos;
+    }
+}
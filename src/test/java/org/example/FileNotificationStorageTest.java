@@ -0,0 +1,267 @@
+package org.example;
+
+import org.example.domain.view.NotificationView;
+import org.example.infrastructure.storage.FileNotificationStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the memory-mapped append-only storage backend
+ */
+class FileNotificationStorageTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void test1_shouldRebuildStateAfterRestart() throws IOException {
+        Path log = dir.resolve("notifications.log");
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            storage.markAsSent(ids(1000)); // grows past the initial mapping
+            storage.saveLastSeenTimestamp("100");
+            storage.saveLastSeenTimestamp("200");
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            assertEquals(1000, storage.getAllSentIds().size());
+            assertEquals("200", storage.getLastSeenTimestamp());
+            assertEquals(Set.of("new"), storage.filterUnsent(List.of("516-1", "new", "516-999")));
+        }
+    }
+
+    @Test
+    void test2_shouldDropExpiredIdsAndCompactTheLog() throws IOException {
+        Path log = dir.resolve("notifications.log");
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            storage.markAsSent(ids(1000));
+            LocalDateTime future = LocalDateTime.now().plusDays(1);
+            assertEquals(600, storage.deleteSentBefore(future, 600).size());
+            assertEquals(400, storage.deleteSentBefore(future, 600).size());
+            assertEquals(0, storage.deleteSentBefore(LocalDateTime.now().minusDays(1), 600).size());
+
+            storage.compact();
+            storage.markAsSent(Set.of("516-1"));
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            assertEquals(Set.of("516-1"), storage.getAllSentIds());
+            assertTrue(Files.size(log) <= 4096);
+        }
+    }
+
+    @Test
+    void test3_shouldReplayTheOutboxWithAttemptsAndParkedEntries() throws IOException {
+        Path log = dir.resolve("notifications.log");
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            storage.enqueuePending(List.of(view("516-1", "one"), view("516-2", "two"), view("516-3", "three")));
+            assertEquals(List.of("516-1", "516-2", "516-3"), ids(storage.getPending()));
+
+            storage.markAsSent(Set.of("516-2"));
+            assertEquals(List.of("516-1", "516-3"), ids(storage.getPending()), "sent entries leave the outbox");
+
+            assertEquals(1, storage.recordFailedAttempt(List.of("516-1", "516-3")));
+            assertEquals(2, storage.recordFailedAttempt(List.of("516-3")));
+            assertEquals(0, storage.recordFailedAttempt(List.of("516-2")), "not pending any more");
+            storage.park(List.of("516-3"));
+            assertEquals(List.of("516-1"), ids(storage.getPending()));
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            List<NotificationView> pending = storage.getPending();
+            assertEquals(List.of("516-1"), ids(pending), "the parked entry stays parked after a restart");
+            assertEquals("one", pending.get(0).content);
+            assertEquals(2, storage.recordFailedAttempt(List.of("516-1")), "attempts survive a restart");
+            assertEquals(1L, storage.metrics().get("parked"));
+
+            storage.compact();
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            assertEquals(List.of("516-1"), ids(storage.getPending()));
+            assertEquals(3, storage.recordFailedAttempt(List.of("516-1")), "attempts survive compaction");
+            assertEquals(3, storage.recordFailedAttempt(List.of("516-3")), "so does the parked entry");
+            storage.markAsSent(Set.of("516-1", "516-3"));
+            assertTrue(storage.getPending().isEmpty());
+            assertEquals(0L, storage.metrics().get("parked"));
+        }
+    }
+
+    @Test
+    void test4_shouldSplitValuesLongerThanOneRecord() throws IOException {
+        Path log = dir.resolve("notifications.log");
+        String longContent = "x".repeat(150_000);
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            storage.enqueuePending(List.of(view("516-long", longContent), view("516-short", "short")));
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            List<NotificationView> pending = storage.getPending();
+            assertEquals(List.of("516-long", "516-short"), ids(pending));
+            assertEquals(longContent, pending.get(0).content);
+
+            storage.compact();
+            storage.enqueuePending(List.of(view("516-after", "after")));
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            List<NotificationView> pending = storage.getPending();
+            assertEquals(List.of("516-long", "516-short", "516-after"), ids(pending));
+            assertEquals(longContent, pending.get(0).content);
+        }
+    }
+
+    @Test
+    void test5_shouldKeepTheLatestCardPerIssueAndChatAcrossRestartAndCompaction() throws Exception {
+        Path log = dir.resolve("notifications.log");
+        LocalDateTime cutoff;
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            storage.saveCard("BUG-1", "42", 10);
+            storage.saveCard("BUG-1", "42", 11);
+            storage.saveCard("BUG-1", "-100", 20);
+            LocalDateTime hourAgo = LocalDateTime.now().minusHours(1);
+            assertEquals(Long.valueOf(11), storage.findCard("BUG-1", "42", hourAgo), "the latest card wins");
+            assertEquals(Long.valueOf(20), storage.findCard("BUG-1", "-100", hourAgo), "one card per chat");
+            assertNull(storage.findCard("BUG-2", "42", hourAgo));
+            assertNull(storage.findCard("BUG-1", "42", LocalDateTime.now().plusMinutes(1)), "past the edit window");
+
+            Thread.sleep(20);
+            cutoff = LocalDateTime.now();
+            Thread.sleep(20);
+            storage.saveCard("BUG-2", "42", 30);
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            LocalDateTime hourAgo = LocalDateTime.now().minusHours(1);
+            assertEquals(Long.valueOf(11), storage.findCard("BUG-1", "42", hourAgo));
+            assertEquals(Long.valueOf(20), storage.findCard("BUG-1", "-100", hourAgo));
+            assertEquals(Long.valueOf(30), storage.findCard("BUG-2", "42", hourAgo));
+            assertNull(storage.findCard("BUG-1", "42", cutoff), "replay keeps when each card was sent");
+
+            assertEquals(2, storage.deleteCardsBefore(cutoff));
+            assertNull(storage.findCard("BUG-1", "42", hourAgo));
+            assertEquals(Long.valueOf(30), storage.findCard("BUG-2", "42", hourAgo));
+            storage.compact();
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            assertEquals(1, storage.metrics().get("cards"), "evicted cards are gone from the compacted log");
+            assertEquals(Long.valueOf(30), storage.findCard("BUG-2", "42", LocalDateTime.now().minusHours(1)));
+            assertNull(storage.findCard("BUG-1", "-100", LocalDateTime.now().minusHours(1)));
+        }
+    }
+
+    @Test
+    void test6_shouldKeepAnsweringFilterUnsentWhileCompacting() throws Exception {
+        try (FileNotificationStorage storage = new FileNotificationStorage(dir.resolve("notifications.log"), 4096, 10000, false)) {
+            Set<String> sent = ids(5000);
+            storage.markAsSent(sent);
+            storage.saveLastSeenTimestamp("100");
+
+            Thread compacting = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20; i++) {
+                        storage.compact();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            compacting.start();
+            int checks = 0;
+            while (compacting.isAlive()) {
+                assertTrue(storage.filterUnsent(sent).isEmpty(), "a sent ID reads as unsent mid-compaction");
+                checks++;
+            }
+            compacting.join();
+            assertTrue(checks > 0);
+            assertEquals(20L, storage.metrics().get("compactions"));
+
+            // Appends continue at the end of the compacted log
+            storage.markAsSent(Set.of("new"));
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(dir.resolve("notifications.log"), 4096, 10000, false)) {
+            assertEquals(5001, storage.getAllSentIds().size());
+            assertEquals("100", storage.getLastSeenTimestamp());
+        }
+    }
+
+    @Test
+    void test7_shouldCompactAfterPurgesOnlyPastTheThreshold() throws Exception {
+        try (FileNotificationStorage storage = new FileNotificationStorage(dir.resolve("notifications.log"), 4096, 5, false)) {
+            storage.markAsSent(ids(3));
+            storage.saveLastSeenTimestamp("100");
+            storage.saveLastSeenTimestamp("200");
+            LocalDateTime future = LocalDateTime.now().plusDays(1);
+            assertEquals(3, storage.deleteSentBefore(future, 100).size());
+            assertEquals(0, storage.deleteSentBefore(future, 100).size());
+            assertEquals(4L, storage.metrics().get("deadRecords"), "below the threshold, no rewrite");
+
+            storage.markAsSent(Set.of("516-a", "516-b"));
+            assertEquals(2, storage.deleteSentBefore(future, 100).size());
+            for (int i = 0; i < 100 && !Long.valueOf(1).equals(storage.metrics().get("compactions")); i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(1L, storage.metrics().get("compactions"));
+            assertEquals(0L, storage.metrics().get("deadRecords"));
+        }
+    }
+
+    @Test
+    void test8_shouldDropParkedEntriesByWhenTheyWereParked() throws Exception {
+        Path log = dir.resolve("notifications.log");
+        LocalDateTime cutoff;
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            storage.enqueuePending(List.of(view("516-1", "one"), view("516-2", "two"), view("516-3", "three")));
+            storage.park(List.of("516-1"));
+            Thread.sleep(20);
+            cutoff = LocalDateTime.now();
+            Thread.sleep(20);
+            storage.park(List.of("516-2"));
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            assertEquals(1, storage.deleteParkedBefore(cutoff), "replay keeps when each entry was parked");
+            assertEquals(1L, storage.metrics().get("parked"));
+            assertEquals(List.of("516-3"), ids(storage.getPending()), "entries still retried are kept");
+            storage.compact();
+        }
+
+        try (FileNotificationStorage storage = new FileNotificationStorage(log, 4096, 10000, false)) {
+            assertEquals(1L, storage.metrics().get("parked"), "the dropped entry is gone from the compacted log");
+            assertEquals(0, storage.deleteParkedBefore(cutoff), "so is when the other one was parked");
+            assertEquals(1, storage.deleteParkedBefore(LocalDateTime.now().plusMinutes(1)));
+            assertEquals(0L, storage.metrics().get("parked"));
+            assertEquals(List.of("516-3"), ids(storage.getPending()));
+        }
+    }
+
+    private static NotificationView view(String id, String content) {
+        NotificationView view = new NotificationView();
+        view.id = id;
+        view.content = content;
+        return view;
+    }
+
+    private static List<String> ids(List<NotificationView> views) {
+        return views.stream().map(v -> v.id).toList();
+    }
+
+    private Set<String> ids(int count) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("516-" + i);
+        }
+        return ids;
+    }
+}
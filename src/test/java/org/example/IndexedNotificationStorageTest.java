@@ -0,0 +1,103 @@
+package org.example;
+
+import org.example.infrastructure.storage.FileNotificationStorage;
+import org.example.infrastructure.storage.IndexedNotificationStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the resident dedup index in front of another storage backend
+ */
+class IndexedNotificationStorageTest {
+
+    @TempDir
+    Path dir;
+
+    private FileNotificationStorage delegate;
+    private IndexedNotificationStorage indexed;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        delegate = new FileNotificationStorage(dir.resolve("notifications.log"), 4096, 10000, false);
+        indexed = new IndexedNotificationStorage(delegate);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        delegate.close();
+    }
+
+    @Test
+    void test1_shouldAnswerFilterUnsentFromTheLoadedIndex() {
+        delegate.markAsSent(Set.of("516-1", "516-2"));
+        indexed.load();
+
+        assertEquals(List.of("516-3", "516-0"),
+                List.copyOf(indexed.filterUnsent(List.of("516-3", "516-1", "516-0", "516-2"))), "keeps input order");
+
+        // Written behind the index's back: not visible until the next load
+        delegate.markAsSent(Set.of("516-3"));
+        assertEquals(Set.of("516-3"), indexed.filterUnsent(List.of("516-3")));
+        indexed.load();
+        assertTrue(indexed.filterUnsent(List.of("516-3")).isEmpty());
+    }
+
+    @Test
+    void test2_shouldWriteMarkAsSentThroughToTheDelegate() throws IOException {
+        indexed.load();
+
+        indexed.markAsSent(Set.of("516-1", "516-2"));
+
+        assertTrue(indexed.filterUnsent(List.of("516-1", "516-2")).isEmpty());
+        assertEquals(Set.of("516-1", "516-2"), delegate.getAllSentIds());
+        assertEquals(2, indexed.metrics().get("size"));
+
+        delegate.close();
+        delegate = new FileNotificationStorage(dir.resolve("notifications.log"), 4096, 10000, false);
+        IndexedNotificationStorage reopened = new IndexedNotificationStorage(delegate);
+        reopened.load();
+        assertEquals(Set.of("516-3"), reopened.filterUnsent(List.of("516-1", "516-2", "516-3")));
+    }
+
+    @Test
+    void test3_shouldDropPurgedIdsFromTheIndexBatchByBatch() {
+        indexed.load();
+        Set<String> old = ids(250);
+        indexed.markAsSent(old);
+
+        LocalDateTime future = LocalDateTime.now().plusDays(1);
+        Set<String> firstBatch = indexed.deleteSentBefore(future, 100);
+        assertEquals(100, firstBatch.size());
+        assertEquals(firstBatch, indexed.filterUnsent(old), "purged IDs leave the index right away");
+        assertEquals(150, indexed.metrics().get("size"));
+
+        assertEquals(100, indexed.deleteSentBefore(future, 100).size());
+        assertEquals(50, indexed.deleteSentBefore(future, 100).size());
+        assertEquals(old, indexed.filterUnsent(old), "purged IDs are sendable again");
+        assertEquals(0, indexed.metrics().get("size"));
+
+        // Marks made between batches are kept, no reload drops them
+        indexed.markAsSent(Set.of("516-new"));
+        assertTrue(indexed.deleteSentBefore(LocalDateTime.now().minusDays(1), 100).isEmpty());
+        assertTrue(indexed.filterUnsent(List.of("516-new")).isEmpty());
+    }
+
+    private static Set<String> ids(int count) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("516-" + i);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,113 @@
+package org.example;
+
+import org.example.app.Application;
+import org.example.application.service.NotificationScheduler;
+import org.example.domain.port.NotificationStoragePort;
+import org.example.infrastructure.storage.DatabaseLeaderElection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application contexts sharing one file-mode H2 database, as two replicas would
+ */
+class LeaderElectionIntegrationTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void test1_shouldElectSingleLeaderAndFailOver() throws InterruptedException {
+        ConfigurableApplicationContext first = startReplica("replica-a");
+        ConfigurableApplicationContext second = null;
+        try {
+            DatabaseLeaderElection a = first.getBean(DatabaseLeaderElection.class);
+            await(a::isLeader, "first replica should take the lease");
+
+            second = startReplica("replica-b");
+            DatabaseLeaderElection b = second.getBean(DatabaseLeaderElection.class);
+            Thread.sleep(500); // several heartbeats
+            assertTrue(a.isLeader());
+            assertFalse(b.isLeader(), "only one replica may hold the lease");
+
+            // /pull on one replica switches polling on for whichever one leads
+            first.getBean(NotificationScheduler.class).start();
+            NotificationScheduler standby = second.getBean(NotificationScheduler.class);
+            await(standby::isRunning, "polling state should be shared");
+
+            first.close();
+            await(b::isLeader, "standby should take over after the leader leaves");
+            assertTrue(standby.isRunning());
+        } finally {
+            first.close();
+            if (second != null) second.close();
+        }
+    }
+
+    @Test
+    void test2_shouldReloadTheDedupIndexOnTakeover() throws InterruptedException {
+        ConfigurableApplicationContext first = startReplica("replica-a", "storage.index.enabled=true");
+        ConfigurableApplicationContext second = null;
+        try {
+            await(first.getBean(DatabaseLeaderElection.class)::isLeader, "first replica should take the lease");
+            second = startReplica("replica-b", "storage.index.enabled=true");
+            NotificationStoragePort standbyStorage = second.getBean(NotificationStoragePort.class);
+
+            // Sent by the leader after the standby loaded its index
+            first.getBean(NotificationStoragePort.class).markAsSent(Set.of("516-1"));
+            assertEquals(Set.of("516-1"), standbyStorage.filterUnsent(List.of("516-1")));
+
+            first.close();
+            await(second.getBean(DatabaseLeaderElection.class)::isLeader, "standby should take over");
+            assertTrue(standbyStorage.filterUnsent(List.of("516-1")).isEmpty(),
+                    "the new leader must not send what the old one already sent");
+        } finally {
+            first.close();
+            if (second != null) second.close();
+        }
+    }
+
+    @Test
+    void test3_shouldRefuseLeaderElectionWithFileStorage() {
+        Exception e = assertThrows(Exception.class, () -> startReplica("replica-a",
+                "storage.type=file", "storage.file.path=" + dir.resolve("notifications.log")));
+        Throwable root = e;
+        while (root.getCause() != null) root = root.getCause();
+        assertInstanceOf(IllegalStateException.class, root);
+        assertTrue(root.getMessage().contains("storage.type=database"));
+    }
+
+    private ConfigurableApplicationContext startReplica(String instanceId, String... extraProperties) {
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(extraProperties)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:" + dir.resolve("shared") + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "scheduler.leader-election.enabled=true",
+                        "scheduler.leader-election.instance-id=" + instanceId,
+                        "scheduler.leader-election.lease-timeout=PT2S",
+                        "scheduler.leader-election.heartbeat-interval=PT0.1S",
+                        "scheduler.initial-delay=PT1H", // never actually poll YouTrack here
+                        "storage.cleanup.enabled=false")
+                .run();
+    }
+
+    private void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, message);
+            Thread.sleep(50);
+        }
+    }
+}
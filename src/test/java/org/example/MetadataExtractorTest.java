@@ -0,0 +1,94 @@
+package org.example;
+
+import org.example.infrastructure.youtrack.MetadataExtractor;
+import org.example.infrastructure.youtrack.YouTrackProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the single-pass notification metadata extractor
+ */
+class MetadataExtractorTest {
+
+    private MetadataExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        YouTrackProperties properties = new YouTrackProperties();
+        properties.setProjectedFields(List.of("State", "Assignee", "Type"));
+        extractor = new MetadataExtractor(properties);
+    }
+
+    @Test
+    void test1_shouldProjectConfiguredCustomFieldsOnly() throws IOException {
+        MetadataExtractor.Metadata m = extract("{\"issue\":{\"id\":\"DEMO-1\",\"summary\":\"Login fails\",\"fields\":["
+                + "{\"name\":\"state\",\"value\":\"Open\"},"
+                + "{\"name\":\"Sprint\",\"value\":\"S1\"},"
+                + "{\"name\":\"State\",\"value\":\"Fixed\"},"
+                + "{\"name\":\"Assignee\",\"value\":null},"
+                + "{\"value\":\"no name\",\"name\":\"Type\"},"
+                + "42]}}");
+
+        assertEquals("DEMO-1", m.issueId);
+        assertEquals("Login fails", m.summary);
+        assertEquals(Map.of("State", "Open", "Assignee", "", "Type", "no name"), m.fields,
+                "names match case-insensitively, the first match wins and unlisted fields are dropped");
+        assertEquals("Open", m.field("STATE"));
+        assertEquals("", m.field("Sprint"));
+    }
+
+    @Test
+    void test2_shouldKeepAddedTagsApartFromTagReasons() throws IOException {
+        MetadataExtractor.Metadata m = extract("{\"change\":{\"events\":["
+                + "{\"category\":\"TAGS\",\"addedValues\":[{\"name\":\"Star\"},{\"id\":\"7\"}]},"
+                + "{\"category\":\"CUSTOM_FIELD\",\"addedValues\":[{\"name\":\"Critical\"}]},"
+                + "{\"addedValues\":[{\"name\":\"Urgent\"}],\"category\":\"TAGS\"}]},"
+                + "\"reason\":{\"tagReasons\":[{\"name\":\"Watched\"}],\"mentionReasons\":[{\"name\":\"me\"}]}}");
+
+        assertEquals(List.of("Star", "", "Urgent"), m.addedTags);
+        assertEquals(List.of("Watched"), m.tagReasons);
+        assertNull(m.comment);
+    }
+
+    @Test
+    void test3_shouldTakeTheFirstNonEmptyComment() throws IOException {
+        MetadataExtractor.Metadata m = extract("{\"change\":{\"events\":["
+                + "{\"category\":\"COMMENT\",\"addedValues\":[]},"
+                + "{\"category\":\"COMMENT\",\"addedValues\":[{\"name\":\"First\"},{\"name\":\"Second\"}]},"
+                + "{\"category\":\"COMMENT\",\"addedValues\":[{\"name\":\"Later\"}]}]}}");
+
+        assertEquals("First", m.comment);
+    }
+
+    @Test
+    void test4_shouldSkipUnknownAndNestedTokens() throws IOException {
+        MetadataExtractor.Metadata m = extract("{\"extra\":{\"deep\":[{\"x\":{\"header\":\"wrong\"}},[1,[2]]]},"
+                + "\"header\":\"Updated\","
+                + "\"issue\":{\"project\":{\"id\":\"0-1\",\"summary\":\"wrong\"},\"id\":\"DEMO-2\","
+                + "\"summary\":{\"text\":\"not a scalar\"},\"fields\":\"not an array\"},"
+                + "\"change\":[\"not an object\"],"
+                + "\"reason\":{\"tagReasons\":[\"plain\",{\"name\":{\"nested\":true}}]}}");
+
+        assertEquals("Updated", m.header);
+        assertEquals("DEMO-2", m.issueId);
+        assertEquals("", m.summary, "objects read as empty text");
+        assertTrue(m.fields.isEmpty());
+        assertTrue(m.addedTags.isEmpty());
+        assertEquals(List.of("", ""), m.tagReasons);
+
+        assertEquals("", extract("[{\"header\":\"not an object\"}]").header);
+        assertEquals("", extractor.extract(new byte[0]).issueId);
+        assertEquals("", extractor.extract(null).issueId);
+    }
+
+    private MetadataExtractor.Metadata extract(String json) throws IOException {
+        return extractor.extract(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import org.example.domain.view.NotificationView;
+import org.example.infrastructure.youtrack.NotificationDecoder;
+import org.example.infrastructure.youtrack.YouTrackProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the pooled, parallel notification attribute decoder
+ */
+class NotificationDecoderTest {
+
+    private NotificationDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        YouTrackProperties properties = new YouTrackProperties();
+        properties.getDecode().setParallelism(4);
+        decoder = new NotificationDecoder(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        decoder.shutdown();
+    }
+
+    @Test
+    void test1_shouldDecodeGzipAndPlainBase64() throws IOException {
+        String text = "{\"issue\":{\"id\":\"DEMO-1\",\"summary\":\"Crème brûlée\"}}".repeat(2000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Decode twice so the second call runs on a pooled inflater
+        for (int i = 0; i < 2; i++) {
+            assertEquals(text, decoder.decodeToString(Base64.getEncoder().encodeToString(bytes.toByteArray())));
+        }
+        assertEquals("plain", decoder.decodeToString(Base64.getEncoder().encodeToString("plain".getBytes(StandardCharsets.UTF_8))));
+        assertEquals("not base64!", decoder.decodeToString("not base64!"));
+        assertEquals("", decoder.decodeToString(""));
+    }
+
+    @Test
+    void test2_shouldKeepSubmissionOrder() throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (NotificationDecoder.OrderedDecodeStage stage = decoder.newStage(n -> ids.add(n.id))) {
+            for (int i = 0; i < 100; i++) {
+                String id = String.valueOf(i);
+                stage.submit(() -> {
+                    Thread.sleep((100 - Integer.parseInt(id)) % 7);
+                    NotificationView view = new NotificationView();
+                    view.id = id;
+                    return view;
+                });
+            }
+            stage.finish();
+        }
+
+        assertEquals(100, ids.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(String.valueOf(i), ids.get(i));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+import org.example.application.service.PushIngestionTracker;
+import org.example.domain.view.NotificationView;
+import org.example.infrastructure.youtrack.YouTrackProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for matching polled notifications to changes already pushed by the YouTrack webhook
+ */
+class PushIngestionTrackerTest {
+
+    private YouTrackProperties properties;
+    private PushIngestionTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        properties = new YouTrackProperties();
+        properties.getWebhook().setEnabled(true);
+        properties.getWebhook().setMatchTolerance("PT2S");
+        tracker = new PushIngestionTracker(properties);
+    }
+
+    @Test
+    void test1_shouldMatchTheClosestNotificationWhenTimestampsDiffer() {
+        tracker.recordPush("DEMO-1", 10_000);
+
+        // The notification is stamped after the issue change; a later edit is also within the tolerance
+        List<NotificationView> polled = List.of(
+                polled("516-2", "DEMO-1", 11_500),
+                polled("516-1", "DEMO-1", 10_030),
+                polled("516-3", "DEMO-2", 10_030));
+        assertEquals(Set.of("516-1"), tracker.claimCovered(polled), "one push covers one notification");
+
+        // The push is used up, the next sweep sends what is left
+        assertTrue(tracker.claimCovered(polled).isEmpty());
+    }
+
+    @Test
+    void test2_shouldNotMatchOutsideTheToleranceOrWhenDisabled() {
+        tracker.recordPush("DEMO-1", 10_000);
+        assertTrue(tracker.claimCovered(List.of(polled("516-1", "DEMO-1", 12_001))).isEmpty());
+        assertTrue(tracker.claimCovered(List.of(polled("516-1", "DEMO-1", "not a number"))).isEmpty());
+
+        properties.getWebhook().setEnabled(false);
+        assertTrue(tracker.claimCovered(List.of(polled("516-1", "DEMO-1", 10_000))).isEmpty());
+        properties.getWebhook().setEnabled(true);
+        assertEquals(Set.of("516-1"), tracker.claimCovered(List.of(polled("516-1", "DEMO-1", 9_000))));
+    }
+
+    @Test
+    void test3_shouldGiveEachOfSeveralPushesItsOwnNotification() {
+        tracker.recordPush("DEMO-1", 10_000);
+        tracker.recordPush("DEMO-1", 10_500);
+
+        assertEquals(Set.of("516-1", "516-2"), tracker.claimCovered(List.of(
+                polled("516-1", "DEMO-1", 10_020),
+                polled("516-2", "DEMO-1", 10_510),
+                polled("516-3", "DEMO-1", 10_900))));
+    }
+
+    private static NotificationView polled(String id, String issueId, long updated) {
+        return polled(id, issueId, String.valueOf(updated));
+    }
+
+    private static NotificationView polled(String id, String issueId, String updated) {
+        NotificationView n = new NotificationView();
+        n.id = id;
+        n.issueId = issueId;
+        n.updated = updated;
+        return n;
+    }
+}
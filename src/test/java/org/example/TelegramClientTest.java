@@ -0,0 +1,183 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.example.domain.port.MessageRejectedException;
+import org.example.infrastructure.http.HttpTransportMetrics;
+import org.example.infrastructure.telegram.RateLimitedMessenger;
+import org.example.infrastructure.telegram.RetryingMessenger;
+import org.example.infrastructure.telegram.TelegramApiException;
+import org.example.infrastructure.telegram.TelegramClient;
+import org.example.infrastructure.telegram.TelegramProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests TelegramClient against a local HTTP stand-in for the Bot API
+ */
+class TelegramClientTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private volatile String errorDescription = "Bad Request";
+    private final Queue<Integer> rateLimitedReplies = new ConcurrentLinkedQueue<>(); // retry_after seconds
+
+    private HttpTransportMetrics metrics;
+    private TelegramProperties properties;
+    private TelegramClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bottest-token/sendMessage", this::handle);
+        server.createContext("/bottest-token/editMessageText", this::handle);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        properties = new TelegramProperties();
+        properties.setApiBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        properties.setBotToken("test-token");
+        properties.setPmChatId("42");
+
+        metrics = new HttpTransportMetrics("telegram.http");
+        client = new TelegramClient(properties, new OkHttpClient.Builder().eventListenerFactory(metrics).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void test1_shouldReuseConnectionsAcrossMessages() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            client.sendToPm("Message *" + i + "*");
+        }
+
+        assertEquals(100, bodies.size());
+        assertTrue(bodies.get(0).contains("chat_id=42"));
+        assertTrue(bodies.get(0).contains("parse_mode=MarkdownV2"));
+        assertTrue(metrics.getConnectionsOpened() <= 2, "opened " + metrics.getConnectionsOpened() + " connections");
+        assertEquals(100L, metrics.metrics().get("calls"));
+    }
+
+    @Test
+    void test2_shouldReportApiErrors() {
+        status = 400;
+
+        TelegramApiException error = assertThrows(TelegramApiException.class, () -> client.sendToChat("42", "bad"));
+        assertTrue(error.getMessage().contains("HTTP 400"));
+        assertEquals(400, error.getErrorCode());
+        assertNull(error.getRetryAfterSeconds());
+    }
+
+    @Test
+    void test3_shouldWaitRetryAfterOn429AndNotRetryOtherClientErrors() throws IOException {
+        RetryingMessenger messenger = new RetryingMessenger(new RateLimitedMessenger(client, properties), properties);
+        rateLimitedReplies.add(1);
+
+        long start = System.nanoTime();
+        messenger.sendToPm("throttled once");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(2, bodies.size(), "one 429 and one successful retry");
+        assertTrue(elapsedMillis >= 1000, "retry_after of 1s should be honored, took " + elapsedMillis + "ms");
+        assertEquals(1L, messenger.metrics().get("rateLimited"));
+
+        status = 400;
+        MessageRejectedException rejected = assertThrows(MessageRejectedException.class, () -> messenger.sendToPm("bad"));
+        assertInstanceOf(TelegramApiException.class, rejected.getCause());
+        assertEquals(3, bodies.size(), "a 400 is not retried");
+    }
+
+    @Test
+    void test4_shouldReturnMessageIdAndReportEditsTelegramRefuses() throws IOException {
+        client.sendToPm("first");
+        assertEquals(2L, client.sendCard(null, "card"));
+        assertTrue(bodies.get(1).contains("chat_id=42"));
+
+        assertTrue(client.editCard("7", 2L, "card, updated"));
+        assertTrue(bodies.get(2).contains("message_id=2"));
+
+        status = 400;
+        errorDescription = "Bad Request: message is not modified";
+        assertTrue(client.editCard("7", 2L, "card, updated"), "the same text counts as edited");
+        errorDescription = "Bad Request: message to edit not found";
+        assertFalse(client.editCard("7", 2L, "card, again"));
+    }
+
+    @Test
+    void test5_shouldBackOffExponentiallyWithinTheTotalBudget() {
+        properties.getRateLimit().setEnabled(false);
+        properties.getRetry().setMaxAttempts(4);
+        FakeTicker ticker = new FakeTicker();
+        RetryingMessenger messenger = new RetryingMessenger(new RateLimitedMessenger(client, properties, ticker),
+                properties, ticker);
+
+        // 0.5s, 1s and 2s, each with up to 20% jitter, then the fourth attempt gives up
+        status = 503;
+        assertThrows(TelegramApiException.class, () -> messenger.sendToPm("unavailable"));
+        assertEquals(4, bodies.size());
+        assertEquals(3, ticker.sleeps.size());
+        for (int i = 0; i < 3; i++) {
+            long base = 500_000_000L << i;
+            long slept = ticker.sleeps.get(i);
+            assertTrue(slept >= base && slept <= base * 6 / 5, "retry " + (i + 1) + " slept " + slept + "ns");
+        }
+
+        // A 3s budget leaves room for the 0.5s and 1s waits, not for the 2s one
+        properties.getRetry().setMaxTotal("PT3S");
+        ticker.sleeps.clear();
+        bodies.clear();
+        assertThrows(TelegramApiException.class, () -> messenger.sendToPm("unavailable"));
+        assertEquals(3, bodies.size());
+        assertEquals(2, ticker.sleeps.size());
+        assertEquals(1L, messenger.metrics().get("exhausted"));
+
+        // A gateway error may come after Telegram got the message, so it is not retried
+        status = 502;
+        bodies.clear();
+        assertThrows(TelegramApiException.class, () -> messenger.sendToPm("maybe delivered"));
+        assertEquals(1, bodies.size());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        Integer retryAfter = rateLimitedReplies.poll();
+        int code = retryAfter != null ? 429 : status;
+        String json;
+        if (retryAfter != null) {
+            json = "{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests: retry after " + retryAfter
+                    + "\",\"parameters\":{\"retry_after\":" + retryAfter + "}}";
+        } else if (code == 200) {
+            json = "{\"ok\":true,\"result\":{\"message_id\":" + bodies.size() + "}}";
+        } else {
+            json = "{\"ok\":false,\"error_code\":400,\"description\":\"" + errorDescription + "\"}";
+        }
+        byte[] response = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+}
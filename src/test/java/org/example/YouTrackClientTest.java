@@ -0,0 +1,224 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.example.domain.view.NotificationView;
+import org.example.infrastructure.http.HttpTransportMetrics;
+import org.example.infrastructure.youtrack.MetadataExtractor;
+import org.example.infrastructure.youtrack.NotificationDecoder;
+import org.example.infrastructure.youtrack.YouTrackClient;
+import org.example.infrastructure.youtrack.YouTrackHttpConfiguration;
+import org.example.infrastructure.youtrack.YouTrackProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests YouTrackClient against a local HTTP stand-in for the YouTrack REST API
+ */
+class YouTrackClientTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final List<Map<String, String>> requests = new CopyOnWriteArrayList<>();
+    private volatile Function<Map<String, String>, String> responder = query -> "[]";
+
+    private YouTrackProperties properties;
+    private NotificationDecoder decoder;
+    private YouTrackClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/users/notifications", this::handle);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        properties = new YouTrackProperties();
+        properties.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        properties.setToken("test-token");
+        properties.getDecode().setParallelism(2);
+
+        decoder = new NotificationDecoder(properties);
+        client = new YouTrackClient(properties, new OkHttpClient(), decoder, new MetadataExtractor(properties));
+    }
+
+    @AfterEach
+    void tearDown() {
+        decoder.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void test1_shouldDecodeNotificationsAndSkipOnesOlderThanCursor() throws IOException {
+        responder = query -> "[" + notification("1-1", "100", "DEMO-1") + "," + notification("1-2", "300", "DEMO-2")
+                + "," + notification("1-3", "200", "DEMO-3") + "]";
+
+        List<NotificationView> views = client.fetchNotificationsFromTimestamp("200", 10);
+
+        // The cursor's own millisecond is kept: a notification stamped the same can show up after the cursor moved
+        assertEquals(List.of("1-2", "1-3"), views.stream().map(v -> v.id).toList());
+        NotificationView view = views.get(0);
+        assertEquals("1-2", view.id);
+        assertEquals("DEMO-2", view.issueId);
+        assertEquals("Summary DEMO-2", view.title);
+        assertEquals("Open", view.status);
+        assertEquals(List.of("Star"), view.tags);
+        assertTrue(view.link.endsWith("/issue/DEMO-2"));
+
+        assertEquals(1, requests.size());
+        assertNull(requests.get(0).get("updatedAfter"), "no cursor parameter unless one is configured");
+        assertEquals("id,updated,metadata", requests.get(0).get("fields"));
+        assertEquals("Bearer test-token", requests.get(0).get("Authorization"));
+
+        // Sent only when one is configured, and the window is filtered all the same
+        properties.setCursorParameter("updatedAfter");
+        assertEquals(2, client.fetchNotificationsFromTimestamp("200", 10).size());
+        assertEquals("200", requests.get(1).get("updatedAfter"));
+    }
+
+    @Test
+    void test2_shouldFetchPagesInOrderAndStopAtShortPage() throws IOException {
+        properties.getPaging().setPageSize(2);
+        properties.getPaging().setOverlap(1);
+        properties.getPaging().setConcurrency(2);
+        List<String> list = new CopyOnWriteArrayList<>(List.of("1-1", "1-2", "1-3"));
+
+        responder = query -> {
+            if (query.get("$skip") == null) {
+                sleep(200); // first page arrives after the second one
+            }
+            return page(list, query);
+        };
+
+        List<NotificationView> views = client.fetchNotificationsFromTimestamp(null, 10);
+
+        assertEquals(List.of("1-1", "1-2", "1-3"), views.stream().map(v -> v.id).toList());
+        // Each page after the first starts one item early and asks for one more
+        assertTrue(requests.stream().anyMatch(q -> "1".equals(q.get("$skip")) && "3".equals(q.get("$top"))));
+        // The short second page ends the window, so later pages are never requested
+        assertTrue(requests.stream().noneMatch(q -> "5".equals(q.get("$skip"))));
+    }
+
+    @Test
+    void test3_shouldReuseOnePooledConnectionAndCountItInMetrics() throws IOException {
+        properties.getHttp().setMaxRequestsPerHost(3);
+        properties.getHttp().setCallTimeout("PT20S");
+        OkHttpClient shared = new YouTrackHttpConfiguration().youTrackHttpClient(properties);
+        HttpTransportMetrics metrics = (HttpTransportMetrics) shared.eventListenerFactory();
+        client = new YouTrackClient(properties, shared, decoder, new MetadataExtractor(properties));
+        responder = query -> "[" + notification("1-1", "100", "DEMO-1") + "]";
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, client.fetchNotificationsFromTimestamp(null, 10).size());
+        }
+
+        assertEquals(3, shared.dispatcher().getMaxRequestsPerHost());
+        assertEquals(20_000, shared.callTimeoutMillis());
+        assertEquals(1, metrics.getConnectionsOpened(), "later polls ride the pooled keep-alive connection");
+        assertEquals(2, metrics.getConnectionsReused());
+        assertEquals(1, shared.connectionPool().connectionCount());
+        assertEquals(3L, metrics.metrics().get("calls"));
+        assertEquals(0L, metrics.metrics().get("failedCalls"));
+        assertTrue(metrics.getBytesReceived() > 0);
+    }
+
+    @Test
+    void test4_shouldNeitherSkipNorRepeatWhenListShiftsBetweenPages() throws IOException {
+        properties.getPaging().setPageSize(3);
+        properties.getPaging().setOverlap(1);
+        properties.getPaging().setConcurrency(1);
+
+        // A newer notification lands at the head after the first page: the second page would repeat 1-4
+        List<String> list = new CopyOnWriteArrayList<>(List.of("1-5", "1-4", "1-3", "1-2", "1-1"));
+        responder = query -> {
+            String body = page(list, query);
+            if (query.get("$skip") == null) list.add(0, "1-6");
+            return body;
+        };
+        assertEquals(List.of("1-5", "1-4", "1-3", "1-2", "1-1"),
+                client.fetchNotificationsFromTimestamp(null, 9).stream().map(v -> v.id).toList());
+
+        // The head is removed after the first page: without the overlap the second page would skip 1-2
+        List<String> shrinking = new CopyOnWriteArrayList<>(List.of("1-5", "1-4", "1-3", "1-2", "1-1"));
+        responder = query -> {
+            String body = page(shrinking, query);
+            if (query.get("$skip") == null) shrinking.remove(0);
+            return body;
+        };
+        assertEquals(List.of("1-5", "1-4", "1-3", "1-2", "1-1"),
+                client.fetchNotificationsFromTimestamp(null, 9).stream().map(v -> v.id).toList());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw != null) {
+            for (String pair : raw.split("&")) {
+                String[] kv = pair.split("=", 2);
+                query.put(URLDecoder.decode(kv[0], StandardCharsets.UTF_8),
+                        kv.length > 1 ? URLDecoder.decode(kv[1], StandardCharsets.UTF_8) : "");
+            }
+        }
+        query.put("Authorization", exchange.getRequestHeaders().getFirst("Authorization"));
+        requests.add(query);
+
+        byte[] body = responder.apply(query).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serve the $skip/$top slice of a notification list, ids double as the updated timestamp
+     */
+    private static String page(List<String> ids, Map<String, String> query) {
+        int skip = query.get("$skip") == null ? 0 : Integer.parseInt(query.get("$skip"));
+        int top = Integer.parseInt(query.get("$top"));
+        List<String> snapshot = List.copyOf(ids);
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = skip; i < Math.min(skip + top, snapshot.size()); i++) {
+            if (sb.length() > 1) sb.append(',');
+            String id = snapshot.get(i);
+            sb.append(notification(id, id.substring(2), "DEMO-" + id.substring(2)));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String notification(String id, String updated, String issueId) {
+        String metadata = "{\"header\":\"Updated\",\"issue\":{\"id\":\"" + issueId + "\",\"summary\":\"Summary " + issueId + "\","
+                + "\"fields\":[{\"name\":\"State\",\"value\":\"Open\"}]},"
+                + "\"change\":{\"events\":[{\"category\":\"TAGS\",\"addedValues\":[{\"name\":\"Star\"}]}]}}";
+        String encoded = Base64.getEncoder().encodeToString(metadata.getBytes(StandardCharsets.UTF_8));
+        return "{\"id\":\"" + id + "\",\"updated\":" + updated + ",\"metadata\":\"" + encoded + "\"}";
+    }
+}
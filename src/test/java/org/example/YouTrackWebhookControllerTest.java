@@ -0,0 +1,99 @@
+package org.example;
+
+import org.example.application.service.NotifyIssueService;
+import org.example.application.service.YouTrackWebhookHandler;
+import org.example.domain.view.NotificationView;
+import org.example.infrastructure.youtrack.YouTrackProperties;
+import org.example.interfaces.rest.YouTrackWebhookController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the YouTrack webhook endpoint: enablement, the shared secret and payload validation
+ */
+class YouTrackWebhookControllerTest {
+
+    private NotifyIssueService notifyIssueService;
+    private YouTrackProperties properties;
+    private YouTrackWebhookController controller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        notifyIssueService = mock(NotifyIssueService.class);
+        when(notifyIssueService.deliverPushed(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+        properties = new YouTrackProperties();
+        properties.setBaseUrl("https://example.com/");
+        properties.getWebhook().setEnabled(true);
+        properties.getWebhook().setSecret("s3cret");
+        controller = new YouTrackWebhookController(new YouTrackWebhookHandler(notifyIssueService, properties));
+    }
+
+    @Test
+    void test1_shouldRejectMissingOrWrongSecret() throws IOException {
+        String event = "{\"issueId\":\"DEMO-1\",\"updated\":1700000000000}";
+
+        assertEquals(401, controller.webhook(null, event).getStatusCode().value());
+        assertEquals(401, controller.webhook("wrong", event).getStatusCode().value());
+        verify(notifyIssueService, never()).deliverPushed(anyList());
+
+        assertEquals(202, controller.webhook("s3cret", event).getStatusCode().value());
+
+        // Without a configured secret nothing gets through, not even an empty header
+        properties.getWebhook().setSecret("");
+        assertEquals(401, controller.webhook(null, event).getStatusCode().value());
+        assertEquals(401, controller.webhook("", event).getStatusCode().value());
+        properties.getWebhook().setSecret(null);
+        assertEquals(401, controller.webhook("anything", event).getStatusCode().value());
+        verify(notifyIssueService, times(1)).deliverPushed(anyList());
+    }
+
+    @Test
+    void test2_shouldAnswer404WhenDisabled() throws IOException {
+        properties.getWebhook().setEnabled(false);
+
+        assertEquals(404, controller.webhook("s3cret", "{\"issueId\":\"DEMO-1\",\"updated\":1}").getStatusCode().value());
+        verify(notifyIssueService, never()).deliverPushed(anyList());
+    }
+
+    @Test
+    void test3_shouldAnswer400ForBadBodies() throws IOException {
+        assertEquals(400, controller.webhook("s3cret", "{not json").getStatusCode().value());
+        assertEquals(400, controller.webhook("s3cret", "\"just a string\"").getStatusCode().value());
+        assertEquals(400, controller.webhook("s3cret", "{\"updated\":1700000000000}").getStatusCode().value(),
+                "issueId is required");
+        assertEquals(400, controller.webhook("s3cret", "{\"issueId\":\"DEMO-1\"}").getStatusCode().value(),
+                "updated is required to match the polled notification");
+        // One bad event rejects the whole batch, nothing is delivered
+        assertEquals(400, controller.webhook("s3cret",
+                "[{\"issueId\":\"DEMO-1\",\"updated\":1},{\"issueId\":\"DEMO-2\",\"updated\":\"soon\"}]").getStatusCode().value());
+        verify(notifyIssueService, never()).deliverPushed(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test4_shouldDeliverEventsWithStableIds() throws IOException {
+        ResponseEntity<String> response = controller.webhook("s3cret",
+                "[{\"issueId\":\"DEMO-1\",\"summary\":\"Pushed\",\"updated\":1700000000000},"
+                        + "{\"id\":\"wf-42\",\"issueId\":\"DEMO-2\",\"updated\":1700000000500}]");
+
+        assertEquals(202, response.getStatusCode().value());
+        assertEquals("Delivered 2 notification(s)", response.getBody());
+        ArgumentCaptor<List<NotificationView>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notifyIssueService).deliverPushed(captor.capture());
+        List<NotificationView> views = captor.getValue();
+        assertEquals("push:DEMO-1:1700000000000", views.get(0).id, "a retried push maps to the same id");
+        assertEquals("1700000000000", views.get(0).updated);
+        assertEquals("https://example.com/issue/DEMO-1", views.get(0).link);
+        assertEquals("wf-42", views.get(1).id);
+    }
+}